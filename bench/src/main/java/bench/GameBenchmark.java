@@ -0,0 +1,141 @@
+package bench;
+
+import game.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import slidingpuz.Board;
+import slidingpuz.FlatBoard;
+import slidingpuz.SlidingPuzGame;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks of the operations executed on every node of a search. Each invocation works on the next
+ * state of a fixed set, so that the branches do not become perfectly predictable
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private static final int NUM_STATES = 256;
+
+    @Param({ "3x3", "4x4", "5x5" })
+    public String size;
+
+    private String[] states;
+    private long[] packed;
+    private SlidingPuzGame game;
+    private Board board;
+    private Move[] moves;
+    private Move[] validMoves;
+    private int words;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] dims = size.split("x");
+        int h = Integer.parseInt(dims[0]);
+        int w = Integer.parseInt(dims[1]);
+        states = Instances.randomWalks(h, w, 1000, NUM_STATES, 42);
+        game = new SlidingPuzGame(h, w);
+        words = game.getPackedSize();
+        packed = new long[NUM_STATES * words];
+        for (int i = 0; i < NUM_STATES; i++) {
+            game.loadState(states[i]);
+            game.packState(packed, i * words);
+        }
+        board = FlatBoard.create(h, w);
+        moves = game.getAllMoves();
+        validMoves = new Move[moves.length];
+        next = 0;
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (NUM_STATES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int evaluate() {
+        game.unpackState(packed, nextIndex() * words);
+        return game.evaluate();
+    }
+
+    @Benchmark
+    public int evaluateString() {
+        return game.evaluate(states[nextIndex()]);
+    }
+
+    @Benchmark
+    public String getState() {
+        game.unpackState(packed, nextIndex() * words);
+        return game.getState();
+    }
+
+    @Benchmark
+    public void loadState() {
+        game.loadState(states[nextIndex()]);
+    }
+
+    @Benchmark
+    public void packState(Blackhole blackhole) {
+        game.packState(packed, nextIndex() * words);
+        blackhole.consume(packed);
+    }
+
+    @Benchmark
+    public void unpackState() {
+        game.unpackState(packed, nextIndex() * words);
+    }
+
+    @Benchmark
+    public int moveUndo() {
+        // Executes and undoes all valid moves of the current state, updating the heuristic each time
+        int total = 0;
+        for (Move move : moves) {
+            if (game.move(move)) {
+                total += game.evaluate();
+                game.undo();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public List<Move> validMoves() {
+        game.unpackState(packed, nextIndex() * words);
+        return game.getValidMoves();
+    }
+
+    @Benchmark
+    public int validMovesBuffer() {
+        game.unpackState(packed, nextIndex() * words);
+        return game.getValidMoves(validMoves);
+    }
+
+    @Benchmark
+    public int validMoveMask() {
+        game.unpackState(packed, nextIndex() * words);
+        return game.getValidMoveMask();
+    }
+
+    @Benchmark
+    public Board shuffle() {
+        return board.reset().shuffle();
+    }
+}
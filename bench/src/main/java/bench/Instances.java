@@ -0,0 +1,100 @@
+package bench;
+
+import instances.InstanceCorpus;
+import instances.InstanceGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reproducible sets of puzzles, in the format of {@code Game.getState()}
+ */
+public class Instances {
+    private static final long SEED = 20240101L;
+    private static final String CORPUS = "corpus:";
+
+    /**
+     * Get a set of puzzles by its name
+     * @param name Either {@code HxW-walk-LENGTH-COUNT} (e.g. {@code 4x4-walk-40-20}), {@code korf100},
+     *             which is read from the file given by the system property {@code korf100}, or
+     *             {@code corpus:FILE} for a corpus written by {@code InstanceGenerator}
+     * @return The states of the puzzles
+     */
+    public static String[] get(String name) throws IOException {
+        if (name.startsWith(CORPUS)) {
+            return InstanceCorpus.read(Paths.get(name.substring(CORPUS.length()))).getStates();
+        }
+        if (name.equals("korf100")) {
+            String path = System.getProperty("korf100");
+            if (path == null) {
+                throw new IllegalArgumentException("Set -Dkorf100=<file> to run the Korf 100 set");
+            }
+            return korf(Files.readAllLines(Paths.get(path)));
+        }
+
+        String[] parts = name.split("[x-]");
+        assert parts.length == 5 && parts[2].equals("walk") : "Unknown instance set: " + name;
+        return randomWalks(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), SEED);
+    }
+
+    /**
+     * Get the size of the boards of a set of puzzles
+     * @param name The name of the set, as in {@link #get}
+     * @return The height and the width
+     */
+    public static int[] size(String name) throws IOException {
+        if (name.startsWith(CORPUS)) {
+            InstanceCorpus corpus = InstanceCorpus.read(Paths.get(name.substring(CORPUS.length())));
+            return new int[] { corpus.getHeight(), corpus.getWidth() };
+        }
+        if (name.equals("korf100")) {
+            return new int[] { 4, 4 };
+        }
+        String[] parts = name.split("[x-]");
+        return new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) };
+    }
+
+    /**
+     * Generates puzzles by walking randomly from the final state, never undoing the previous move
+     * @param h Height
+     * @param w Width
+     * @param length The number of moves of each walk
+     * @param count The number of puzzles
+     * @param seed The seed of the walks
+     * @return The states of the puzzles
+     */
+    public static String[] randomWalks(int h, int w, int length, int count, long seed) {
+        InstanceGenerator generator = new InstanceGenerator(h, w, seed);
+        String[] states = new String[count];
+        for (int i = 0; i < count; i++) {
+            states[i] = generator.walk(length);
+        }
+        return states;
+    }
+
+    /**
+     * Converts the 15-puzzles of Korf (1985), one per line as 16 numbers with 0 for the empty cell (optionally
+     * preceded by the instance number). Korf's final state has the empty cell at the top left corner, so the
+     * boards are rotated by 180 degrees, which keeps the optimal solution lengths
+     */
+    static String[] korf(List<String> lines) {
+        List<String> states = new ArrayList<>();
+        for (String line : lines) {
+            String[] tiles = line.trim().split("\\s+");
+            if (tiles.length < 16) continue;
+            // Ignore a leading instance number if present
+            int offset = tiles.length == 17 ? 1 : 0;
+            char[] state = new char[16];
+            for (int p = 0; p < 16; p++) {
+                int tile = Integer.parseInt(tiles[offset + p]);
+                state[15 - p] = (char) ((tile == 0 ? 0 : 16 - tile) + '0');
+            }
+            states.add(new String(state));
+        }
+        return states.toArray(new String[0]);
+    }
+}
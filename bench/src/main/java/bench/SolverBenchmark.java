@@ -0,0 +1,60 @@
+package bench;
+
+import game.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import slidingpuz.SlidingPuzGame;
+import solutions.Solution;
+import solutions.SolutionFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a whole set of puzzles per invocation. The Korf 100 set is not included by default, run it with
+ * {@code -p instances=korf100 -jvmArgs -Dkorf100=<file>}, and a corpus written by {@code InstanceGenerator}
+ * with {@code -p instances=corpus:<file>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SolverBenchmark {
+    @Param({ "astar", "idastar" })
+    public String solution;
+
+    @Param({ "3x3-walk-1000-100", "4x4-walk-40-20" })
+    public String instances;
+
+    private String[] states;
+    private Game game;
+    private Solution solver;
+
+    @Setup
+    public void setup() throws IOException {
+        states = Instances.get(instances);
+        int[] size = Instances.size(instances);
+        game = new SlidingPuzGame(size[0], size[1]);
+        solver = SolutionFactory.create(solution, size[0], size[1]);
+    }
+
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        for (String state : states) {
+            game.loadState(state);
+            blackhole.consume(solver.solve(game, 0));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 import game.Game;
 import slidingpuz.SlidingPuzGame;
 import solutions.AStarSolution;
+import solutions.RowByRowSolution;
 import solutions.Solution;
 import utils.Helper;
 
@@ -20,7 +21,9 @@ public class Main {
         System.out.println(game.getState());
         System.out.println();
 
-        Solution solution = new AStarSolution(4 * ((h - 1) + (w - 1)));
+        // A* cannot finish on boards much larger than 4x4
+        Solution solution = h * w > 16 ? new RowByRowSolution()
+                : new AStarSolution(4 * ((h - 1) + (w - 1)), AStarSolution.FIT_HEAP);
         System.out.println(solution.solve(game, 3));
     }
 }
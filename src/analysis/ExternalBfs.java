@@ -0,0 +1,361 @@
+package analysis;
+
+import game.Move;
+import slidingpuz.BoardCodec;
+import slidingpuz.BoardImpl;
+import slidingpuz.SlidingPuzGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Enumerates all states of a board by a breadth-first search from the final state, keeping the layers on disk
+ * instead of in memory. Each layer is a file of distinct packed states in ascending order.
+ *
+ * A layer is expanded in chunks: the successors are collected in a buffer, which is sorted and written as a
+ * run whenever it is full. The runs are then merged into the next layer, dropping the duplicates within the
+ * runs and the states of the previous two layers (delayed duplicate detection). Every move changes the
+ * parity of the position of the empty cell, so a successor of layer d can only be in layer d - 1 or d + 1,
+ * and only the last two layers are kept. The files are read through memory-mapped windows
+ */
+public class ExternalBfs {
+    private static final int WINDOW = 1 << 23;       // The number of states in a mapped window (64 MB)
+    private static final int WRITE_BUFFER = 1 << 16;  // The size of the write buffers in bytes
+    private static final int SAMPLES = 5;             // The number of states of the last layer printed
+
+    private final int height;
+    private final int width;
+    private final Path directory;
+    private final int bufferSize;
+
+    /**
+     * @param height The height of the board
+     * @param width The width of the board
+     * @param directory The directory of the layer files
+     * @param bufferSize The number of states sorted in memory for each run
+     */
+    public ExternalBfs(int height, int width, Path directory, int bufferSize) {
+        assert bufferSize >= 1 : "The buffer needs to hold at least 1 state";
+        this.height = height;
+        this.width = width;
+        this.directory = directory;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Usage: {@code ExternalBfs h w directory [bufferSize]}. Prints the number of states at each distance from
+     * the final state, the total and a few states at the maximum distance
+     */
+    public static void main(String[] args) throws IOException {
+        assert args.length >= 3 : "At least 3 arguments required";
+        int h = Integer.parseInt(args[0]);
+        int w = Integer.parseInt(args[1]);
+        Path directory = Paths.get(args[2]);
+        int bufferSize = args.length >= 4 ? Integer.parseInt(args[3]) : 1 << 24;
+        new ExternalBfs(h, w, directory, bufferSize).run(System.out);
+    }
+
+    /**
+     * Runs the search. The layer files are deleted except the last one
+     * @param output Receives the number of states of each layer as soon as it is complete
+     * @return The number of states of each layer
+     */
+    public long[] run(PrintStream output) throws IOException {
+        SlidingPuzGame game = new SlidingPuzGame(height, width);
+        if (game.getPackedSize() != 1) {
+            throw new IllegalArgumentException("Only boards packed into 1 word are supported");
+        }
+        Files.createDirectories(directory);
+        long start = System.currentTimeMillis();
+
+        long[] state = new long[1];
+        game.packFinalState(state, 0);
+        Path previous = null;
+        Path current = layerPath(0);
+        try (RunWriter writer = new RunWriter(current)) {
+            writer.write(state[0]);
+        }
+        List<Long> counts = new ArrayList<>();
+        counts.add(1L);
+        output.printf("%d\t%d\n", 0, 1);
+
+        while (true) {
+            List<Path> runs = expand(game, current);
+            Path next = layerPath(counts.size());
+            long count = merge(runs, previous, current, next);
+            for (Path run : runs) {
+                Files.delete(run);
+            }
+            if (count == 0) {
+                Files.delete(next);
+                break;
+            }
+            if (previous != null) {
+                Files.delete(previous);
+            }
+            previous = current;
+            current = next;
+            counts.add(count);
+            output.printf("%d\t%d\n", counts.size() - 1, count);
+        }
+        if (previous != null) {
+            Files.delete(previous);
+        }
+
+        long total = counts.stream().mapToLong(Long::longValue).sum();
+        output.printf("total\t%d\t(expected %s)\n", total, expectedTotal());
+        output.printf("diameter\t%d\t(%d ms)\n", counts.size() - 1, System.currentTimeMillis() - start);
+        printSamples(current, output);
+        return counts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Writes the successors of all states of a layer into sorted runs
+     * @return The paths of the runs
+     */
+    private List<Path> expand(SlidingPuzGame game, Path layer) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        Move[] moves = game.getAllMoves();
+        long[] state = new long[1];
+        long[] buffer = new long[bufferSize];
+        int size = 0;
+        try (RunReader reader = new RunReader(layer)) {
+            while (reader.hasNext()) {
+                state[0] = reader.next();
+                game.unpackState(state, 0);
+                for (Move move : moves) {
+                    if (!game.move(move)) continue;
+                    game.packState(buffer, size++);
+                    game.undo();
+                    if (size == buffer.length) {
+                        runs.add(writeRun(buffer, size, runs.size()));
+                        size = 0;
+                    }
+                }
+            }
+        }
+        if (size > 0) {
+            runs.add(writeRun(buffer, size, runs.size()));
+        }
+        return runs;
+    }
+
+    private Path writeRun(long[] buffer, int size, int index) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        Path path = directory.resolve("run-" + index + ".bin");
+        try (RunWriter writer = new RunWriter(path)) {
+            for (int i = 0; i < size; i++) {
+                // Drop the duplicates within the run
+                if (i == 0 || buffer[i] != buffer[i - 1]) {
+                    writer.write(buffer[i]);
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Merges the runs into the next layer, dropping the states of the previous two layers
+     * @param previous The layer before the current layer, or null for the first layer
+     * @return The number of states in the next layer
+     */
+    private long merge(List<Path> runs, Path previous, Path current, Path next) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> Long.compare(a.peek(), b.peek()));
+        List<RunReader> readers = new ArrayList<>();
+        try (RunWriter writer = new RunWriter(next)) {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.hasNext()) {
+                    queue.add(reader);
+                }
+            }
+            RunReader[] seen = {
+                    previous == null ? null : new RunReader(previous),
+                    new RunReader(current),
+            };
+            readers.addAll(Arrays.asList(seen));
+
+            boolean hasLast = false;
+            long last = 0;
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                long value = reader.next();
+                if (reader.hasNext()) {
+                    queue.add(reader);
+                }
+                if (hasLast && value == last) continue;
+                hasLast = true;
+                last = value;
+                if (!contains(seen[0], value) && !contains(seen[1], value)) {
+                    writer.write(value);
+                }
+            }
+            return writer.getCount();
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a sorted file contains a value, given that the values are checked in ascending order
+     */
+    private static boolean contains(RunReader reader, long value) {
+        if (reader == null) return false;
+        while (reader.hasNext() && reader.peek() < value) {
+            reader.next();
+        }
+        return reader.hasNext() && reader.peek() == value;
+    }
+
+    private void printSamples(Path layer, PrintStream output) throws IOException {
+        BoardCodec codec = new BoardCodec(height, width);
+        BoardImpl board = new BoardImpl(height, width);
+        long[] state = new long[1];
+        try (RunReader reader = new RunReader(layer)) {
+            for (int i = 0; i < SAMPLES && reader.hasNext(); i++) {
+                state[0] = reader.next();
+                codec.decode(state, 0, board);
+                assert board.isSolvable() : "Reached an invalid state";
+                StringBuilder line = new StringBuilder();
+                for (int r = 0; r < height; r++) {
+                    for (int c = 0; c < width; c++) {
+                        line.append(c == 0 ? (r == 0 ? "" : " / ") : " ").append(board.get(r, c));
+                    }
+                }
+                output.println(line);
+            }
+        }
+    }
+
+    /**
+     * Only half of all permutations are valid (see {@code BoardImpl.isSolvable})
+     */
+    private BigInteger expectedTotal() {
+        BigInteger total = BigInteger.ONE;
+        for (int i = 2; i <= height * width; i++) {
+            total = total.multiply(BigInteger.valueOf(i));
+        }
+        return total.shiftRight(1);
+    }
+
+    private Path layerPath(int depth) {
+        return directory.resolve("layer-" + depth + ".bin");
+    }
+
+    /**
+     * Reads a file of states in order, mapping one window of the file into memory at a time
+     */
+    private static class RunReader implements Closeable {
+        private final FileChannel channel;
+        private final long length;
+        private long position;
+        private LongBuffer window;
+        private long head;
+        private boolean hasHead;
+
+        RunReader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            length = channel.size() / Long.BYTES;
+            position = 0;
+            advance();
+        }
+
+        boolean hasNext() {
+            return hasHead;
+        }
+
+        long peek() {
+            return head;
+        }
+
+        long next() {
+            long value = head;
+            try {
+                advance();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return value;
+        }
+
+        private void advance() throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                long count = Math.min(WINDOW, length - position);
+                if (count == 0) {
+                    hasHead = false;
+                    return;
+                }
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position * Long.BYTES, count * Long.BYTES)
+                        .asLongBuffer();
+                position += count;
+            }
+            head = window.get();
+            hasHead = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Appends states to a file through a direct buffer
+     */
+    private static class RunWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long count;
+
+        RunWriter(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            count = 0;
+        }
+
+        void write(long value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(value);
+            count++;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package batch;
+
+import heuristics.HeuristicFactory;
+import instances.InstanceCorpus;
+import slidingpuz.SlidingPuzGame;
+import solutions.Solution;
+import solutions.SolutionFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+public class BatchSolver {
+    private final int height;
+    private final int width;
+    private final int numWorkers;
+    private final Supplier<Solution> solutions;
+    private final int queueCapacity;
+    private final String heuristic;
+
+    /**
+     * @param height The height of the boards
+     * @param width The width of the boards
+     * @param numWorkers The number of puzzles solved at the same time
+     * @param solutions Creates the solution used by each worker
+     * @param queueCapacity The maximum number of puzzles read but not yet taken by a worker
+     * @param heuristic The name of the heuristic of the games, accepted by {@code HeuristicFactory.create}
+     */
+    public BatchSolver(int height, int width, int numWorkers, Supplier<Solution> solutions, int queueCapacity,
+                       String heuristic) {
+        assert numWorkers >= 1 && queueCapacity >= 1 : "At least 1 worker and 1 queued puzzle required";
+        this.height = height;
+        this.width = width;
+        this.numWorkers = numWorkers;
+        this.solutions = solutions;
+        this.queueCapacity = queueCapacity;
+        this.heuristic = heuristic;
+    }
+
+    public BatchSolver(int height, int width, int numWorkers, Supplier<Solution> solutions, int queueCapacity) {
+        this(height, width, numWorkers, solutions, queueCapacity, "manhattan");
+    }
+
+    /**
+     * Usage: {@code BatchSolver h w [threads] [solution] [file] [heuristic]}. The puzzles are read
+     * from the file (or stdin if it is {@code -}), one state in the format of {@code Game.getState()} per line,
+     * or from a corpus written by {@code InstanceGenerator}, numbered in the order of the corpus. A line is
+     * printed as soon as each puzzle is solved: the line number, the number of moves, the number of
+     * expanded states, the time in milliseconds and the moves, separated by tabs. The solution is any name
+     * accepted by {@code SolutionFactory.create} (astar by default), and the heuristic any name accepted by
+     * {@code HeuristicFactory.create} (manhattan by default)
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        assert args.length >= 2 : "At least 2 arguments required";
+        int h = Integer.parseInt(args[0]);
+        int w = Integer.parseInt(args[1]);
+        int threads = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String name = args.length >= 4 ? args[3] : "astar";
+        String heuristic = args.length >= 6 ? args[5] : "manhattan";
+
+        // Fail early on unknown names
+        SolutionFactory.create(name, h, w);
+        HeuristicFactory.create(heuristic, h, w);
+        Supplier<Solution> solutions = () -> SolutionFactory.create(name, h, w);
+
+        BufferedReader input;
+        if (args.length < 5 || args[4].equals("-")) {
+            input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        } else if (InstanceCorpus.isCorpus(Paths.get(args[4]))) {
+            InstanceCorpus corpus = InstanceCorpus.read(Paths.get(args[4]));
+            if (corpus.getHeight() != h || corpus.getWidth() != w) {
+                throw new IllegalArgumentException(
+                        "The corpus has boards of " + corpus.getHeight() + "x" + corpus.getWidth());
+            }
+            input = new BufferedReader(new StringReader(String.join("\n", corpus.getStates())));
+        } else {
+            input = Files.newBufferedReader(Paths.get(args[4]), StandardCharsets.UTF_8);
+        }
+        PrintStream output = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        try (input) {
+            new BatchSolver(h, w, threads, solutions, 4 * threads, heuristic).run(input, output);
+        }
+    }
+
+    /**
+     * Solves all puzzles read from the input. The puzzles are handed to the workers through a bounded queue,
+     * so reading blocks whenever the workers fall behind
+     * @param input The puzzles, one state per line
+     * @param output Receives one line per puzzle in the order the puzzles are solved
+     */
+    public void run(BufferedReader input, PrintStream output) throws IOException, InterruptedException {
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Thread[] workers = new Thread[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            workers[i] = new Thread(() -> work(queue, output), "batch-worker-" + i);
+            workers[i].start();
+        }
+
+        try {
+            String line;
+            for (int index = 1; (line = input.readLine()) != null; index++) {
+                if (!line.isEmpty()) {
+                    queue.put(new Job(index, line));
+                }
+            }
+        } finally {
+            // Tell every worker to stop after the remaining puzzles
+            for (int i = 0; i < numWorkers; i++) {
+                queue.put(new Job(-1, null));
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+    }
+
+    private void work(BlockingQueue<Job> queue, PrintStream output) {
+        SlidingPuzGame game = new SlidingPuzGame(height, width);
+        game.setHeuristic(HeuristicFactory.create(heuristic, height, width));
+        Solution solution = solutions.get();
+        try {
+            while (true) {
+                Job job = queue.take();
+                if (job.state == null) {
+                    return;
+                }
+
+                String result;
+                try {
+                    game.loadState(job.state);
+                    long start = System.nanoTime();
+                    String moves = solution.solve(game, 0);
+                    long time = (System.nanoTime() - start) / 1000000;
+                    result = String.format("%d\t%d\t%d\t%d\t%s",
+                            job.index, moves.length(), solution.getStats().getExpanded(), time, moves);
+                } catch (Throwable e) {
+                    // Keep the worker alive, or the reader would block forever on the full queue. A search that
+                    // failed with an error (such as running out of nodes) may leave the solution inconsistent
+                    result = String.format("%d\terror\t%s", job.index, e);
+                    if (e instanceof Error) {
+                        solution = solutions.get();
+                    }
+                }
+                // A single println is atomic, so the lines of different workers never interleave
+                output.println(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Job {
+        private final int index;
+        private final String state;
+
+        Job(int index, String state) {
+            this.index = index;
+            this.state = state;
+        }
+    }
+}
@@ -8,6 +8,13 @@ public interface Game {
      */
     void restart();
 
+    /**
+     * Create an independent game in the same state, including the past moves. Games are not thread-safe,
+     * so each thread should work on its own copy
+     * @return The new game
+     */
+    Game copy();
+
     /**
      * Populate the board with the given state
      * @param state A string made of {@code r * c} characters. Each character is translated into an integer
@@ -22,6 +29,33 @@ public interface Game {
      */
     String getState();
 
+    /**
+     * Get the number of {@code long} words used by a packed state
+     * @return The number of words
+     */
+    int getPackedSize();
+
+    /**
+     * Packs the board (without the past moves) into {@link #getPackedSize()} consecutive words
+     * @param dest The destination array
+     * @param offset The index of the first word to be written
+     */
+    void packState(long[] dest, int offset);
+
+    /**
+     * Populate the board with a state packed by {@link #packState}. The past moves are cleared
+     * @param src The source array
+     * @param offset The index of the first word to be read
+     */
+    void unpackState(long[] src, int offset);
+
+    /**
+     * Packs the final state in the same format as {@link #packState}
+     * @param dest The destination array
+     * @param offset The index of the first word to be written
+     */
+    void packFinalState(long[] dest, int offset);
+
     /**
      * Outputs the formatted state for better visualization when printed to the console
      * @return The formatted string
@@ -47,6 +81,32 @@ public interface Game {
      */
     List<Move> getValidMoves();
 
+    /**
+     * Same as {@link #getValidMoves()}, but fills a buffer instead of allocating a list
+     * @param dest The buffer, at least as long as {@link #getAllMoves()}
+     * @return The number of moves written to the start of the buffer
+     */
+    int getValidMoves(Move[] dest);
+
+    /**
+     * Get the moves that will succeed from the current state, including the one cancelling the last move
+     * @return A bitmask with bit i set if the move {@code getAllMoves()[i]} is valid
+     */
+    int getValidMoveMask();
+
+    /**
+     * Get all kinds of moves of the game, regardless of the current state. Some of them may fail when executed
+     * @return A shared array of the moves, which should not be modified
+     */
+    Move[] getAllMoves();
+
+    /**
+     * Get the move cancelling each move, by their indices in {@link #getAllMoves()}
+     * @return A shared array mapping the index of each move to the index of its reverse, which should not be
+     *         modified
+     */
+    int[] getReverseMoves();
+
     /**
      * Get a string of chars representing the order of the moves executed
      */
@@ -84,4 +144,11 @@ public interface Game {
      * @return An integer score of the GIVEN state. A lower score represents a better state
      */
     int evaluate(String state);
+
+    /**
+     * Estimate the number of steps required to reach the final state from the CURRENT state. Unlike
+     * {@link #evaluate()}, the estimate never exceeds the actual number of steps (i.e. it is admissible)
+     * @return A lower bound of the remaining steps
+     */
+    int estimate();
 }
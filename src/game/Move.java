@@ -6,4 +6,10 @@ public interface Move {
      * @return The corresponding char
      */
     char toChar();
+
+    /**
+     * Get the move that cancels this move
+     * @return The reversed move
+     */
+    Move reverse();
 }
@@ -0,0 +1,92 @@
+package heuristics;
+
+import slidingpuz.Board;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Sums the pattern databases of disjoint patterns. When a tile moves, only the table containing it is looked up
+ */
+public class AdditivePdbHeuristic implements Heuristic {
+    private final PatternDatabase[] tables;
+    private final int[][] positions;  // The positions of the tiles of each table
+    private final int[] tableOf;      // The table containing each tile, or -1
+    private final int[] slotOf;       // The index of each tile in its table
+    private final int[] values;
+    private int total;
+
+    public AdditivePdbHeuristic(PatternDatabase... tables) {
+        assert tables.length > 0 : "At least 1 table required";
+        int n = tables[0].getHeight() * tables[0].getWidth();
+        this.tables = tables.clone();
+        positions = new int[tables.length][];
+        tableOf = new int[n];
+        slotOf = new int[n];
+        values = new int[tables.length];
+
+        Arrays.fill(tableOf, -1);
+        for (int t = 0; t < tables.length; t++) {
+            if (tables[t].getHeight() != tables[0].getHeight() || tables[t].getWidth() != tables[0].getWidth()) {
+                throw new IllegalArgumentException("All tables need to have the same size");
+            }
+            int[] tiles = tables[t].getTiles();
+            positions[t] = new int[tiles.length];
+            for (int i = 0; i < tiles.length; i++) {
+                if (tableOf[tiles[i]] != -1) {
+                    throw new IllegalArgumentException("Tile " + tiles[i] + " is in more than 1 table");
+                }
+                tableOf[tiles[i]] = t;
+                slotOf[tiles[i]] = i;
+            }
+        }
+    }
+
+    /**
+     * Maps the tables saved in files into memory
+     * @param paths The paths of the tables
+     * @return The heuristic summing the tables
+     */
+    public static AdditivePdbHeuristic load(Path... paths) throws IOException {
+        PatternDatabase[] tables = new PatternDatabase[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            tables[i] = PatternDatabase.load(paths[i]);
+        }
+        return new AdditivePdbHeuristic(tables);
+    }
+
+    @Override
+    public void reset(Board board) {
+        for (int tile = 1; tile < tableOf.length; tile++) {
+            if (tableOf[tile] != -1) {
+                positions[tableOf[tile]][slotOf[tile]] = board.indexOf(tile);
+            }
+        }
+        total = 0;
+        for (int t = 0; t < tables.length; t++) {
+            values[t] = tables[t].lookup(positions[t]);
+            total += values[t];
+        }
+    }
+
+    @Override
+    public void update(Board board, int tile, int from, int to) {
+        int t = tableOf[tile];
+        if (t == -1) return;
+        positions[t][slotOf[tile]] = to;
+        int value = tables[t].lookup(positions[t]);
+        total += value - values[t];
+        values[t] = value;
+    }
+
+    @Override
+    public int value() {
+        return total;
+    }
+
+    @Override
+    public Heuristic copy() {
+        return new AdditivePdbHeuristic(tables);
+    }
+}
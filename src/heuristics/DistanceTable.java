@@ -0,0 +1,134 @@
+package heuristics;
+
+import slidingpuz.Board;
+import slidingpuz.FlatBoard;
+import slidingpuz.BoardRank;
+import utils.BitArray;
+import utils.ByteArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The exact number of moves from every valid board of a small size to the final state, stored in one byte
+ * per board indexed by {@link BoardRank}. As a heuristic it is perfect, but re-ranks the whole board on every
+ * move. The tables are built once for each board size by a breadth-first search, and shared by all instances
+ */
+public class DistanceTable implements Heuristic {
+    /**
+     * The maximum number of boards in a table, which limits the sizes supported to about 3x4
+     */
+    public static final long MAX_SIZE = 1L << 31;
+
+    private static final byte UNVISITED = (byte) 0xFF;
+    private static final Map<String, ByteArray> TABLES = new HashMap<>();
+
+    private final BoardRank ranks;
+    private final ByteArray distances;
+    private int value;
+
+    /**
+     * @param height The height of the boards
+     * @param width The width of the boards
+     * @throws IllegalArgumentException If the board size has more than {@code MAX_SIZE} valid boards
+     */
+    public DistanceTable(int height, int width) {
+        this(new BoardRank(height, width), getTable(height, width));
+    }
+
+    private DistanceTable(BoardRank ranks, ByteArray distances) {
+        this.ranks = ranks;
+        this.distances = distances;
+    }
+
+    /**
+     * Get the number of moves required to solve a board
+     * @param board A valid board of the size of the table
+     * @return The number of moves
+     */
+    public int lookup(Board board) {
+        return distances.get(ranks.rank(board)) & 0xFF;
+    }
+
+    @Override
+    public void reset(Board board) {
+        value = lookup(board);
+    }
+
+    @Override
+    public void update(Board board, int tile, int from, int to) {
+        value = lookup(board);
+    }
+
+    @Override
+    public int value() {
+        return value;
+    }
+
+    @Override
+    public Heuristic copy() {
+        return new DistanceTable(new BoardRank(ranks.getHeight(), ranks.getWidth()), distances);
+    }
+
+    private static synchronized ByteArray getTable(int height, int width) {
+        return TABLES.computeIfAbsent(height + "x" + width, key -> build(height, width));
+    }
+
+    /**
+     * Runs a breadth-first search from the final state. Each layer is a bit array over the ranks
+     */
+    private static ByteArray build(int height, int width) {
+        BoardRank ranks = new BoardRank(height, width);
+        if (ranks.size() > MAX_SIZE) {
+            throw new IllegalArgumentException("The board is too large for a distance table: " + height + "x" + width);
+        }
+        ByteArray distances = new ByteArray(ranks.size(), UNVISITED);
+        BitArray current = new BitArray(ranks.size());
+        BitArray next = new BitArray(ranks.size());
+        Board board = FlatBoard.create(height, width);
+
+        long root = ranks.rank(board);
+        distances.set(root, (byte) 0);
+        current.set(root);
+        for (int distance = 0; current.nextSetBit(0) != -1; distance++) {
+            for (long rank = current.nextSetBit(0); rank != -1; rank = current.nextSetBit(rank + 1)) {
+                ranks.unrank(rank, board);
+                int empty = board.getEmptyIndex();
+                int r = empty / width, c = empty % width;
+                for (int direction = 0; direction < 4; direction++) {
+                    int cell = neighbor(height, width, r, c, direction);
+                    if (cell == -1) continue;
+                    board.swapAt(empty, cell);
+                    long child = ranks.rank(board);
+                    board.swapAt(empty, cell);
+                    if (distances.get(child) == UNVISITED) {
+                        distances.set(child, (byte) (distance + 1));
+                        next.set(child);
+                    }
+                }
+            }
+            BitArray temp = current;
+            current = next;
+            next = temp;
+            next.clear();
+        }
+        return distances;
+    }
+
+    /**
+     * Find the cell next to a cell in one of the 4 directions
+     * @return The row-major index of the cell, or -1 if it is out of bounds
+     */
+    private static int neighbor(int height, int width, int r, int c, int direction) {
+        switch (direction) {
+            case 0:
+                return r > 0 ? (r - 1) * width + c : -1;
+            case 1:
+                return r < height - 1 ? (r + 1) * width + c : -1;
+            case 2:
+                return c > 0 ? r * width + c - 1 : -1;
+            default:
+                return c < width - 1 ? r * width + c + 1 : -1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package heuristics;
+
+import slidingpuz.Board;
+
+public interface Heuristic {
+    /**
+     * Recompute the heuristic from scratch. Called whenever the whole board is replaced
+     * @param board The board being evaluated
+     */
+    void reset(Board board);
+
+    /**
+     * Update the heuristic after a single tile has been moved into the empty cell
+     * @param board The board after the move
+     * @param tile The value of the moved tile
+     * @param from The row-major index of the cell the tile moved from
+     * @param to The row-major index of the cell the tile moved to
+     */
+    void update(Board board, int tile, int from, int to);
+
+    /**
+     * Get the value of the heuristic for the current board
+     * @return A lower bound of the steps required to reach the final state
+     */
+    int value();
+
+    /**
+     * Create an independent instance for another game, sharing all read-only tables with this one
+     * @return The new instance
+     */
+    Heuristic copy();
+}
@@ -0,0 +1,26 @@
+package heuristics;
+
+public class HeuristicFactory {
+    /**
+     * Create a heuristic by its name
+     * @param name One of {@code manhattan} (the built-in heuristics of the game), {@code linearconflict},
+     *             {@code walkingdistance} and {@code distancetable}
+     * @param h The height of the boards to be solved
+     * @param w The width of the boards to be solved
+     * @return The heuristic, or null for the built-in heuristics
+     */
+    public static Heuristic create(String name, int h, int w) {
+        switch (name) {
+            case "manhattan":
+                return null;
+            case "linearconflict":
+                return new LinearConflictHeuristic(h, w);
+            case "walkingdistance":
+                return new WalkingDistanceHeuristic(h, w);
+            case "distancetable":
+                return new DistanceTable(h, w);
+            default:
+                throw new IllegalArgumentException("Unknown heuristic: " + name);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package heuristics;
+
+import slidingpuz.Board;
+
+/**
+ * The manhattan distance plus 2 moves for each tile that has to leave its target row or column to let
+ * other tiles of the same line pass. In each line, the tiles already in their target line can stay only if
+ * they are in order, so the number of tiles that have to leave is the number of such tiles minus the longest
+ * increasing subsequence of their target positions.
+ *
+ * A move only changes the order of tiles in the lines it crosses: a horizontal move changes the two columns
+ * involved, and a vertical move the two rows, so only those lines are recomputed
+ */
+public class LinearConflictHeuristic implements Heuristic {
+    private final int height;
+    private final int width;
+    private final int[] rowConflicts;
+    private final int[] colConflicts;
+    private final int[] tails;  // Scratch space for the longest increasing subsequence
+    private int manhattan;
+    private int conflicts;
+
+    public LinearConflictHeuristic(int height, int width) {
+        this.height = height;
+        this.width = width;
+        rowConflicts = new int[height];
+        colConflicts = new int[width];
+        tails = new int[Math.max(height, width)];
+    }
+
+    @Override
+    public void reset(Board board) {
+        manhattan = 0;
+        for (int i = 0; i < height * width; i++) {
+            int tile = board.getAt(i);
+            if (tile != 0) {
+                manhattan += Math.abs((tile - 1) / width - i / width) + Math.abs((tile - 1) % width - i % width);
+            }
+        }
+        conflicts = 0;
+        for (int r = 0; r < height; r++) {
+            rowConflicts[r] = rowConflicts(board, r);
+            conflicts += rowConflicts[r];
+        }
+        for (int c = 0; c < width; c++) {
+            colConflicts[c] = colConflicts(board, c);
+            conflicts += colConflicts[c];
+        }
+    }
+
+    @Override
+    public void update(Board board, int tile, int from, int to) {
+        int fromR = from / width, fromC = from % width;
+        int toR = to / width, toC = to % width;
+        int targetR = (tile - 1) / width, targetC = (tile - 1) % width;
+        manhattan += Math.abs(targetR - toR) + Math.abs(targetC - toC)
+                - Math.abs(targetR - fromR) - Math.abs(targetC - fromC);
+
+        if (fromR == toR) {
+            updateCol(board, fromC);
+            updateCol(board, toC);
+        } else {
+            updateRow(board, fromR);
+            updateRow(board, toR);
+        }
+    }
+
+    @Override
+    public int value() {
+        return manhattan + 2 * conflicts;
+    }
+
+    @Override
+    public Heuristic copy() {
+        return new LinearConflictHeuristic(height, width);
+    }
+
+    // Helpers
+    private void updateRow(Board board, int r) {
+        int value = rowConflicts(board, r);
+        conflicts += value - rowConflicts[r];
+        rowConflicts[r] = value;
+    }
+
+    private void updateCol(Board board, int c) {
+        int value = colConflicts(board, c);
+        conflicts += value - colConflicts[c];
+        colConflicts[c] = value;
+    }
+
+    /**
+     * Count the tiles that have to leave a row for the other tiles targeting the row to be in order
+     */
+    private int rowConflicts(Board board, int r) {
+        int count = 0;
+        int length = 0;
+        for (int c = 0; c < width; c++) {
+            int tile = board.getAt(r * width + c);
+            if (tile != 0 && (tile - 1) / width == r) {
+                count++;
+                length = extend(length, (tile - 1) % width);
+            }
+        }
+        return count - length;
+    }
+
+    /**
+     * Count the tiles that have to leave a column for the other tiles targeting the column to be in order
+     */
+    private int colConflicts(Board board, int c) {
+        int count = 0;
+        int length = 0;
+        for (int r = 0; r < height; r++) {
+            int tile = board.getAt(r * width + c);
+            if (tile != 0 && (tile - 1) % width == c) {
+                count++;
+                length = extend(length, (tile - 1) / width);
+            }
+        }
+        return count - length;
+    }
+
+    /**
+     * Adds a value to the longest increasing subsequence being built in {@code tails}, where tails[i] is the
+     * least last value of the increasing subsequences of length i + 1
+     * @param length The length of the longest increasing subsequence so far
+     * @param value The next value, distinct from all previous values
+     * @return The new length
+     */
+    private int extend(int length, int value) {
+        int lo = 0, hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tails[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        tails[lo] = value;
+        return Math.max(length, lo + 1);
+    }
+}
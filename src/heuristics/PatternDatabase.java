@@ -0,0 +1,158 @@
+package heuristics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A table of the minimum number of moves of a subset of tiles (the pattern) required to bring them to
+ * their target positions, indexed by the positions of the pattern tiles. Moves of other tiles are free,
+ * so the tables of disjoint patterns can be added up without overestimating. Lookups never change the
+ * state of the underlying buffer, so a table can be shared by multiple threads.
+ *
+ * File format (big-endian): the magic number, height, width, number of tiles k, the k tiles, then
+ * {@code n! / (n-k)!} bytes of distances where {@code n = height * width}
+ */
+public class PatternDatabase {
+    private static final int MAGIC = 0x50444231;  // "PDB1"
+
+    private final int height;
+    private final int width;
+    private final int[] tiles;
+    private final ByteBuffer table;
+
+    PatternDatabase(int height, int width, int[] tiles, ByteBuffer table) {
+        assert table.capacity() == size(height * width, tiles.length) : "The table has wrong size";
+        this.height = height;
+        this.width = width;
+        this.tiles = tiles.clone();
+        this.table = table;
+    }
+
+    /**
+     * Get the minimum moves of the pattern tiles
+     * @param positions The row-major index of each pattern tile, in the order of {@link #getTiles()}
+     * @return The number of moves
+     */
+    public int lookup(int[] positions) {
+        return table.get((int) rank(positions, tiles.length, height * width)) & 0xFF;
+    }
+
+    /**
+     * Writes the table to a file
+     * @param path The path of the file
+     */
+    public void save(Path path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(height);
+            out.writeInt(width);
+            out.writeInt(tiles.length);
+            for (int tile : tiles) {
+                out.writeInt(tile);
+            }
+            byte[] chunk = new byte[1 << 16];
+            ByteBuffer data = table.duplicate();
+            data.clear();
+            while (data.hasRemaining()) {
+                int length = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Maps a table written by {@link #save} into memory. The file is paged in by the OS on demand, so
+     * loading takes constant time regardless of the size of the table
+     * @param path The path of the file
+     * @return The table
+     */
+    public static PatternDatabase load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not a pattern database");
+            }
+            int height = buffer.getInt();
+            int width = buffer.getInt();
+            int[] tiles = new int[buffer.getInt()];
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = buffer.getInt();
+            }
+            if (buffer.remaining() != size(height * width, tiles.length)) {
+                throw new IOException(path + " has wrong size");
+            }
+            return new PatternDatabase(height, width, tiles, buffer.slice());
+        }
+    }
+
+    // Helpers
+    /**
+     * Get the number of ways to place k distinct items into n cells
+     */
+    static long size(int n, int k) {
+        long size = 1;
+        for (int i = 0; i < k; i++) {
+            size *= n - i;
+        }
+        return size;
+    }
+
+    /**
+     * Ranks the positions of k distinct items into {@code [0, n! / (n-k)!)}. The i-th item is assigned the
+     * digit (its position - the number of previous items in front of it), with radix {@code n - i}
+     */
+    static long rank(int[] positions, int k, int n) {
+        long index = 0;
+        long used = 0;
+        for (int i = 0; i < k; i++) {
+            int position = positions[i];
+            int digit = position - Long.bitCount(used & ((1L << position) - 1));
+            index = index * (n - i) + digit;
+            used |= 1L << position;
+        }
+        return index;
+    }
+
+    /**
+     * Inverse of {@link #rank}
+     */
+    static void unrank(long index, int k, int n, int[] positions) {
+        // Extract the digits starting from the least significant one
+        for (int i = k - 1; i >= 0; i--) {
+            positions[i] = (int) (index % (n - i));
+            index /= n - i;
+        }
+        // Convert each digit to the digit-th free cell
+        long used = 0;
+        for (int i = 0; i < k; i++) {
+            long free = ~used;
+            for (int j = 0; j < positions[i]; j++) {
+                free &= free - 1;
+            }
+            positions[i] = Long.numberOfTrailingZeros(free);
+            used |= 1L << positions[i];
+        }
+    }
+
+    // Getters & setters
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int[] getTiles() {
+        return tiles.clone();
+    }
+}
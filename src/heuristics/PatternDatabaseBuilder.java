@@ -0,0 +1,149 @@
+package heuristics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class PatternDatabaseBuilder {
+    private static final byte UNVISITED = (byte) 0xFF;
+
+    /**
+     * Usage: {@code PatternDatabaseBuilder h w directory pattern...}, where each pattern is a comma separated
+     * list of tiles, e.g. {@code 4 4 pdb 1,2,3,4,5,6 7,8,9,10,11,12 13,14,15}. Each table is saved as
+     * {@code directory/h-w-tiles.pdb}
+     */
+    public static void main(String[] args) throws IOException {
+        assert args.length >= 4 : "At least 4 arguments required";
+        int h = Integer.parseInt(args[0]);
+        int w = Integer.parseInt(args[1]);
+        Path directory = Paths.get(args[2]);
+
+        for (int i = 3; i < args.length; i++) {
+            int[] tiles = Arrays.stream(args[i].split(",")).mapToInt(Integer::parseInt).toArray();
+            long start = System.currentTimeMillis();
+            PatternDatabase pdb = build(h, w, tiles);
+            Path path = directory.resolve(fileName(h, w, tiles));
+            pdb.save(path);
+            System.out.printf("%s: %d ms\n", path, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Get the default file name of a table
+     */
+    public static String fileName(int h, int w, int[] tiles) {
+        StringBuilder name = new StringBuilder();
+        name.append(h).append('-').append(w);
+        for (int tile : tiles) {
+            name.append('-').append(tile);
+        }
+        return name.append(".pdb").toString();
+    }
+
+    /**
+     * Builds the table of a pattern by a breadth-first search backwards from the final state
+     * @param h The height of the board
+     * @param w The width of the board
+     * @param tiles The tiles of the pattern
+     * @return The table
+     */
+    public static PatternDatabase build(int h, int w, int[] tiles) {
+        /*
+         * The search runs on the abstract states made of the positions of the pattern tiles followed by the
+         * position of the empty cell. Moving a pattern tile costs 1 and moving any other tile costs 0, thus
+         * the states are visited one cost level at a time: the states reached by free moves are appended to
+         * the current level, and the ones reached by moving a pattern tile to the next level.
+         *
+         * The table stores, for each placement of the pattern tiles, the minimum over all empty cells.
+         */
+        int n = h * w;
+        int k = tiles.length;
+        assert n <= 64 : "The board can have at most 64 cells";
+        long fullSize = PatternDatabase.size(n, k + 1);
+        if (fullSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern of " + k + " tiles is too large for a " + h + "x" + w + " board");
+        }
+
+        byte[] dist = new byte[(int) fullSize];
+        Arrays.fill(dist, UNVISITED);
+        int[] positions = new int[k + 1];
+        int[] next = new int[k + 1];
+
+        // Start from the final state
+        for (int i = 0; i < k; i++) {
+            assert tiles[i] >= 1 && tiles[i] < n : "Invalid tile " + tiles[i];
+            positions[i] = tiles[i] - 1;
+        }
+        positions[k] = n - 1;
+        int[] current = { (int) PatternDatabase.rank(positions, k + 1, n) };
+        int currentSize = 1;
+        dist[current[0]] = 0;
+
+        for (int cost = 0; currentSize > 0; cost++) {
+            int[] following = new int[1024];
+            int followingSize = 0;
+
+            for (int head = 0; head < currentSize; head++) {
+                int index = current[head];
+                // Skip states that have been reached at a lower cost after being queued
+                if ((dist[index] & 0xFF) != cost) continue;
+                PatternDatabase.unrank(index, k + 1, n, positions);
+
+                int empty = positions[k];
+                int er = empty / w, ec = empty % w;
+                for (int d = 0; d < 4; d++) {
+                    int nr = er + (d == 0 ? 1 : d == 1 ? -1 : 0);
+                    int nc = ec + (d == 2 ? 1 : d == 3 ? -1 : 0);
+                    if (nr < 0 || nr >= h || nc < 0 || nc >= w) continue;
+                    int neighbor = nr * w + nc;
+
+                    // Swap the empty cell with the tile in the neighboring cell
+                    System.arraycopy(positions, 0, next, 0, k + 1);
+                    int moved = -1;
+                    for (int i = 0; i < k; i++) {
+                        if (next[i] == neighbor) {
+                            moved = i;
+                            next[i] = empty;
+                            break;
+                        }
+                    }
+                    next[k] = neighbor;
+                    int nextIndex = (int) PatternDatabase.rank(next, k + 1, n);
+                    int nextCost = moved == -1 ? cost : cost + 1;
+                    if ((dist[nextIndex] & 0xFF) <= nextCost) continue;
+                    assert nextCost < 0xFF : "Distance overflow";
+                    dist[nextIndex] = (byte) nextCost;
+
+                    if (moved == -1) {
+                        if (currentSize == current.length) {
+                            current = Arrays.copyOf(current, currentSize * 2);
+                        }
+                        current[currentSize++] = nextIndex;
+                    } else {
+                        if (followingSize == following.length) {
+                            following = Arrays.copyOf(following, followingSize * 2);
+                        }
+                        following[followingSize++] = nextIndex;
+                    }
+                }
+            }
+
+            current = following;
+            currentSize = followingSize;
+        }
+
+        // The empty cell is ranked last with radix n - k, so its placements are consecutive
+        int size = (int) PatternDatabase.size(n, k);
+        byte[] table = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int min = 0xFF;
+            for (int j = 0; j < n - k; j++) {
+                min = Math.min(min, dist[i * (n - k) + j] & 0xFF);
+            }
+            table[i] = (byte) min;
+        }
+        return new PatternDatabase(h, w, tiles, ByteBuffer.wrap(table));
+    }
+}
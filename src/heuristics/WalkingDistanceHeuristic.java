@@ -0,0 +1,185 @@
+package heuristics;
+
+import slidingpuz.Board;
+import utils.StateTable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The walking distance of the board. Each row is described only by how many of its tiles target each row,
+ * and a move of the empty cell to an adjacent row carries one tile of any kind with it. The number of such
+ * moves needed to reach the final rows is a lower bound of the vertical moves, and the same is done with the
+ * columns for the horizontal moves.
+ *
+ * The distances are computed once for each board size by a breadth-first search from the final state, and
+ * shared by all instances. A move only changes the counts of one line direction, which is looked up again
+ */
+public class WalkingDistanceHeuristic implements Heuristic {
+    /**
+     * The maximum number of states in a table, which limits the boards supported to at most 4 rows and 4 columns
+     */
+    public static final int MAX_STATES = 1 << 22;
+
+    private static final Map<String, Table> TABLES = new HashMap<>();
+
+    private final int width;
+    private final Table rows;
+    private final Table cols;
+    private final long[] rowKey;
+    private final long[] colKey;
+    private int rowDistance;
+    private int colDistance;
+
+    /**
+     * @param height The height of the boards
+     * @param width The width of the boards
+     * @throws IllegalArgumentException If the tables of the board size have more than {@code MAX_STATES} states
+     */
+    public WalkingDistanceHeuristic(int height, int width) {
+        this(width, getTable(height, width), getTable(width, height));
+    }
+
+    private WalkingDistanceHeuristic(int width, Table rows, Table cols) {
+        this.width = width;
+        this.rows = rows;
+        this.cols = cols;
+        rowKey = new long[rows.words];
+        colKey = new long[cols.words];
+    }
+
+    @Override
+    public void reset(Board board) {
+        Arrays.fill(rowKey, 0);
+        Arrays.fill(colKey, 0);
+        for (int i = 0; i < board.getHeight() * width; i++) {
+            int tile = board.getAt(i);
+            if (tile != 0) {
+                rows.add(rowKey, i / width, (tile - 1) / width, 1);
+                cols.add(colKey, i % width, (tile - 1) % width, 1);
+            }
+        }
+        rowDistance = rows.distance(rowKey);
+        colDistance = cols.distance(colKey);
+    }
+
+    @Override
+    public void update(Board board, int tile, int from, int to) {
+        int fromR = from / width, fromC = from % width;
+        int toR = to / width, toC = to % width;
+        if (fromR == toR) {
+            int target = (tile - 1) % width;
+            cols.add(colKey, fromC, target, -1);
+            cols.add(colKey, toC, target, 1);
+            colDistance = cols.distance(colKey);
+        } else {
+            int target = (tile - 1) / width;
+            rows.add(rowKey, fromR, target, -1);
+            rows.add(rowKey, toR, target, 1);
+            rowDistance = rows.distance(rowKey);
+        }
+    }
+
+    @Override
+    public int value() {
+        return rowDistance + colDistance;
+    }
+
+    @Override
+    public Heuristic copy() {
+        return new WalkingDistanceHeuristic(width, rows, cols);
+    }
+
+    /**
+     * Get the table of the given line direction, building it on first use
+     * @param lines The number of lines (the height for the rows)
+     * @param capacity The number of cells in each line (the width for the rows)
+     */
+    private static synchronized Table getTable(int lines, int capacity) {
+        return TABLES.computeIfAbsent(lines + "x" + capacity, key -> new Table(lines, capacity));
+    }
+
+    /**
+     * The distances of all count matrices of one line direction. Entry (line, target) of a matrix is the
+     * number of tiles in the line targeting the other line, stored in a few bits of the key
+     */
+    private static class Table {
+        private final int lines;
+        private final int capacity;
+        private final int bits;
+        private final int perWord;
+        private final int words;
+        private final StateTable distances;
+
+        Table(int lines, int capacity) {
+            this.lines = lines;
+            this.capacity = capacity;
+            bits = 32 - Integer.numberOfLeadingZeros(capacity);
+            perWord = 64 / bits;
+            words = (lines * lines + perWord - 1) / perWord;
+            distances = new StateTable(words);
+            build();
+        }
+
+        void add(long[] key, int line, int target, int delta) {
+            int entry = line * lines + target;
+            key[entry / perWord] += (long) delta << (entry % perWord * bits);
+        }
+
+        int distance(long[] key) {
+            int distance = distances.get(key, 0);
+            assert distance >= 0 : "Not a valid state";
+            return distance;
+        }
+
+        /**
+         * Runs a breadth-first search from the final state, where the empty cell is in the last line
+         */
+        private void build() {
+            long[] queue = new long[1024 * words];
+            int[] empties = new int[1024];
+            long[] key = new long[words];
+            for (int line = 0; line < lines; line++) {
+                add(key, line, line, line == lines - 1 ? capacity - 1 : capacity);
+            }
+            System.arraycopy(key, 0, queue, 0, words);
+            empties[0] = lines - 1;
+            distances.put(key, 0, 0);
+
+            int size = 1;
+            for (int i = 0; i < size; i++) {
+                int empty = empties[i];
+                int distance = distances.get(queue, i * words);
+                for (int line = empty - 1; line <= empty + 1; line += 2) {
+                    if (line < 0 || line >= lines) continue;
+                    // Move a tile of each kind from the adjacent line into the line of the empty cell
+                    for (int target = 0; target < lines; target++) {
+                        if (count(queue, i * words, line, target) == 0) continue;
+                        System.arraycopy(queue, i * words, key, 0, words);
+                        add(key, line, target, -1);
+                        add(key, empty, target, 1);
+                        if (distances.get(key, 0) != -1) continue;
+
+                        if (size == MAX_STATES) {
+                            throw new IllegalArgumentException(
+                                    "The board is too large for walking distance: " + lines + "x" + capacity);
+                        }
+                        if (size == empties.length) {
+                            queue = Arrays.copyOf(queue, size * 2 * words);
+                            empties = Arrays.copyOf(empties, size * 2);
+                        }
+                        System.arraycopy(key, 0, queue, size * words, words);
+                        empties[size++] = line;
+                        distances.put(key, 0, distance + 1);
+                    }
+                }
+            }
+        }
+
+        int count(long[] keys, int offset, int line, int target) {
+            int entry = line * lines + target;
+            return (int) (keys[offset + entry / perWord] >>> (entry % perWord * bits)) & ((1 << bits) - 1);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package instances;
+
+import slidingpuz.SlidingPuzGame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A set of puzzles of one board size, each with its optimal number of moves if known. The boards are kept
+ * packed in the format of {@code Game.packState}, so a 4x4 puzzle takes one word.
+ *
+ * On disk, a corpus is a header (the magic number, the version, the height, the width, the number of words
+ * of a board and the number of puzzles, each a big-endian int), followed by the packed words of each puzzle
+ * and its distance as an int (-1 if unknown)
+ */
+public class InstanceCorpus {
+    public static final int UNKNOWN = -1;
+    private static final int MAGIC = 0x4E50435A;  // "NPCZ"
+    private static final int VERSION = 1;
+
+    private final int height;
+    private final int width;
+    private final SlidingPuzGame scratch;
+    private final int words;
+    private long[] states;
+    private int[] distances;
+    private int size;
+
+    public InstanceCorpus(int height, int width) {
+        this.height = height;
+        this.width = width;
+        scratch = new SlidingPuzGame(height, width);
+        words = scratch.getPackedSize();
+        states = new long[16 * words];
+        distances = new int[16];
+        size = 0;
+    }
+
+    /**
+     * Usage: {@code InstanceCorpus file}. Prints the puzzles of a corpus, one per line as the state in the
+     * format of {@code Game.getState()} and the distance, separated by a tab
+     */
+    public static void main(String[] args) throws IOException {
+        assert args.length >= 1 : "At least 1 argument required";
+        InstanceCorpus corpus = read(Path.of(args[0]));
+        for (int i = 0; i < corpus.size(); i++) {
+            System.out.println(corpus.getState(i) + "\t" + corpus.getDistance(i));
+        }
+    }
+
+    /**
+     * Adds a puzzle
+     * @param state The state in the format of {@code Game.getState()}, without past moves
+     * @param distance The optimal number of moves, or {@code UNKNOWN}
+     */
+    public void add(String state, int distance) {
+        if (distance < UNKNOWN) {
+            throw new IllegalArgumentException("Invalid distance: " + distance);
+        }
+        if (size == distances.length) {
+            states = Arrays.copyOf(states, 2 * states.length);
+            distances = Arrays.copyOf(distances, 2 * distances.length);
+        }
+        scratch.loadState(state);
+        scratch.packState(states, size * words);
+        distances[size++] = distance;
+    }
+
+    /**
+     * Get a puzzle
+     * @param index The index of the puzzle, in the order they were added
+     * @return The state in the format of {@code Game.getState()}
+     */
+    public String getState(int index) {
+        assert index >= 0 && index < size : "Index out of bounds: " + index;
+        scratch.unpackState(states, index * words);
+        return scratch.getState();
+    }
+
+    public String[] getStates() {
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = getState(i);
+        }
+        return result;
+    }
+
+    /**
+     * Get the optimal number of moves of a puzzle
+     * @param index The index of the puzzle
+     * @return The number of moves, or {@code UNKNOWN}
+     */
+    public int getDistance(int index) {
+        assert index >= 0 && index < size : "Index out of bounds: " + index;
+        return distances[index];
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(height);
+            output.writeInt(width);
+            output.writeInt(words);
+            output.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < words; j++) {
+                    output.writeLong(states[i * words + j]);
+                }
+                output.writeInt(distances[i]);
+            }
+        }
+    }
+
+    public static InstanceCorpus read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not an instance corpus: " + path);
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported corpus version " + version + ": " + path);
+            }
+            InstanceCorpus corpus = new InstanceCorpus(input.readInt(), input.readInt());
+            if (input.readInt() != corpus.words) {
+                throw new IOException("The packed size does not match the board size: " + path);
+            }
+            int count = input.readInt();
+            corpus.states = new long[Math.max(1, count) * corpus.words];
+            corpus.distances = new int[Math.max(1, count)];
+            for (int i = 0; i < count; i++) {
+                for (int j = 0; j < corpus.words; j++) {
+                    corpus.states[i * corpus.words + j] = input.readLong();
+                }
+                corpus.distances[i] = input.readInt();
+            }
+            corpus.size = count;
+            return corpus;
+        }
+    }
+
+    /**
+     * Check if a file starts like a corpus, to tell it apart from a text file of states
+     * @param path The file
+     * @return Whether the file starts with the magic number
+     */
+    public static boolean isCorpus(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // Getters & setters
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,273 @@
+package instances;
+
+import game.Move;
+import heuristics.Heuristic;
+import heuristics.HeuristicFactory;
+import slidingpuz.SlidingPuzGame;
+import solutions.Solution;
+import solutions.SolutionFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates reproducible puzzles: every puzzle is determined by the seed and the calls made before it. The
+ * optimal number of moves of the puzzles is found by solving them, so it is only exact if the solution is
+ * optimal (such as {@code idastar})
+ */
+public class InstanceGenerator {
+    private final int height;
+    private final int width;
+    private final Random random;
+    private final SlidingPuzGame game;
+    private final Move[] moves;
+    private final long[] finalState;
+    private Solution solution;
+
+    /**
+     * @param height The height of the boards
+     * @param width The width of the boards
+     * @param seed The seed of all random choices
+     */
+    public InstanceGenerator(int height, int width, long seed) {
+        this.height = height;
+        this.width = width;
+        random = new Random(seed);
+        game = new SlidingPuzGame(height, width);
+        moves = new Move[game.getAllMoves().length];
+        finalState = new long[game.getPackedSize()];
+        game.packFinalState(finalState, 0);
+    }
+
+    /**
+     * Usage: {@code InstanceGenerator h w seed file mode args... [solution] [heuristic]}, where the mode is one of
+     * <ul>
+     *     <li>{@code uniform count}: uniformly random solvable boards</li>
+     *     <li>{@code walk count length}: random walks of a number of moves from the final state</li>
+     *     <li>{@code hard count candidates}: the boards with the most moves among a number of uniform ones</li>
+     *     <li>{@code curve min max count}: a number of boards for every number of moves from min to max</li>
+     * </ul>
+     * The distances are found with the solution (any name accepted by {@code SolutionFactory.create}, idastar by
+     * default) and the heuristic (any name accepted by {@code HeuristicFactory.create}, manhattan by default), and
+     * are only left unknown for uniform boards and walks if the solution is {@code none}. Writes the corpus to the
+     * file and prints the number of boards at each distance
+     */
+    public static void main(String[] args) throws IOException {
+        assert args.length >= 6 : "At least 6 arguments required";
+        int h = Integer.parseInt(args[0]);
+        int w = Integer.parseInt(args[1]);
+        InstanceGenerator generator = new InstanceGenerator(h, w, Long.parseLong(args[2]));
+        Path path = Path.of(args[3]);
+        String mode = args[4];
+        int numArgs = mode.equals("uniform") ? 1 : mode.equals("curve") ? 3 : 2;
+        int[] values = new int[numArgs];
+        for (int i = 0; i < numArgs; i++) {
+            values[i] = Integer.parseInt(args[5 + i]);
+        }
+        String name = args.length > 5 + numArgs ? args[5 + numArgs] : "idastar";
+        String heuristic = args.length > 6 + numArgs ? args[6 + numArgs] : "manhattan";
+        if (!name.equals("none")) {
+            generator.setSolution(SolutionFactory.create(name, h, w));
+        } else if (mode.equals("hard") || mode.equals("curve")) {
+            throw new IllegalArgumentException("The " + mode + " mode needs a solution to find the distances");
+        }
+        generator.setHeuristic(HeuristicFactory.create(heuristic, h, w));
+
+        InstanceCorpus corpus;
+        switch (mode) {
+            case "uniform":
+                corpus = generator.uniform(values[0]);
+                break;
+            case "walk":
+                corpus = generator.walks(values[0], values[1]);
+                break;
+            case "hard":
+                corpus = generator.hardest(values[0], values[1]);
+                break;
+            case "curve":
+                long maxAttempts = 1000L * (values[1] - values[0] + 1) * values[2];
+                corpus = generator.curve(values[0], values[1], values[2], maxAttempts);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        corpus.write(path);
+
+        // Print the number of boards at each distance
+        int[] counts = new int[1];
+        int unknown = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            int distance = corpus.getDistance(i);
+            if (distance == InstanceCorpus.UNKNOWN) {
+                unknown++;
+                continue;
+            }
+            if (distance >= counts.length) {
+                counts = Arrays.copyOf(counts, distance + 1);
+            }
+            counts[distance]++;
+        }
+        for (int d = 0; d < counts.length; d++) {
+            if (counts[d] > 0) {
+                System.out.printf("%d\t%d\n", d, counts[d]);
+            }
+        }
+        if (unknown > 0) {
+            System.out.printf("unknown\t%d\n", unknown);
+        }
+        System.out.printf("Wrote %d boards to %s\n", corpus.size(), path);
+    }
+
+    /**
+     * Generates a board uniformly among the solvable ones
+     * @return The state in the format of {@code Game.getState()}
+     */
+    public String uniform() {
+        game.restart(random);
+        return game.getState();
+    }
+
+    /**
+     * Generates a board by walking randomly from the final state, never undoing the previous move. Every move
+     * is chosen uniformly among the other valid ones
+     * @param length The number of moves
+     * @return The state in the format of {@code Game.getState()}, without the moves of the walk
+     */
+    public String walk(int length) {
+        game.unpackState(finalState, 0);
+        for (int i = 0; i < length; i++) {
+            int numValid = game.getValidMoves(moves);
+            game.move(moves[random.nextInt(numValid)]);
+        }
+        return game.getState().substring(game.getSteps());
+    }
+
+    /**
+     * Finds the number of moves of a board by solving it
+     * @param state The state in the format of {@code Game.getState()}, without past moves
+     * @return The number of moves of the solution
+     */
+    public int distance(String state) {
+        if (solution == null) {
+            throw new IllegalStateException("A solution is required to find the distances");
+        }
+        game.loadState(state);
+        String result = solution.solve(game, 0);
+        if (!game.isFinalState()) {
+            throw new IllegalStateException("The solution failed to solve " + state);
+        }
+        return result.length();
+    }
+
+    /**
+     * Generates uniformly random boards
+     * @param count The number of boards
+     * @return The boards, with their distances if there is a solution
+     */
+    public InstanceCorpus uniform(int count) {
+        InstanceCorpus corpus = new InstanceCorpus(height, width);
+        for (int i = 0; i < count; i++) {
+            String state = uniform();
+            corpus.add(state, solution == null ? InstanceCorpus.UNKNOWN : distance(state));
+        }
+        return corpus;
+    }
+
+    /**
+     * Generates boards by random walks. The number of moves of a board is at most the length of the walk and
+     * has the same parity
+     * @param count The number of boards
+     * @param length The number of moves of each walk
+     * @return The boards, with their distances if there is a solution
+     */
+    public InstanceCorpus walks(int count, int length) {
+        InstanceCorpus corpus = new InstanceCorpus(height, width);
+        for (int i = 0; i < count; i++) {
+            String state = walk(length);
+            corpus.add(state, solution == null ? InstanceCorpus.UNKNOWN : distance(state));
+        }
+        return corpus;
+    }
+
+    /**
+     * Selects the hardest boards among uniformly random ones, which need a solution to be found. The boards
+     * far from the final state are rare, so the candidates should outnumber the selected boards many times
+     * @param count The number of boards selected
+     * @param candidates The number of boards generated
+     * @return The boards with the most moves, from the greatest number of moves (in the order generated for
+     *         the same number of moves)
+     */
+    public InstanceCorpus hardest(int count, int candidates) {
+        assert count <= candidates : "Cannot select more boards than the candidates";
+        String[] states = new String[candidates];
+        // Sorted by distance descending, then by index, which keeps the selection reproducible
+        long[] keys = new long[candidates];
+        for (int i = 0; i < candidates; i++) {
+            states[i] = uniform();
+            keys[i] = (long) (Integer.MAX_VALUE - distance(states[i])) << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        InstanceCorpus corpus = new InstanceCorpus(height, width);
+        for (int i = 0; i < count; i++) {
+            corpus.add(states[(int) keys[i]], Integer.MAX_VALUE - (int) (keys[i] >>> 32));
+        }
+        return corpus;
+    }
+
+    /**
+     * Generates the same number of boards for every number of moves in a range, which need a solution to be
+     * found. The candidates are random walks with lengths uniformly from min to 2 * max, each kept if its number
+     * of moves is in the range and still needed. The distances close to the greatest one of the board may need
+     * too many attempts, so the search gives up after a number of walks
+     * @param minDistance The least number of moves
+     * @param maxDistance The greatest number of moves
+     * @param perDistance The number of boards of each number of moves
+     * @param maxAttempts The greatest number of walks generated
+     * @return The boards in ascending order of moves, possibly fewer than requested if the attempts ran out
+     */
+    public InstanceCorpus curve(int minDistance, int maxDistance, int perDistance, long maxAttempts) {
+        assert minDistance >= 0 && minDistance <= maxDistance : "Invalid range of distances";
+        int numDistances = maxDistance - minDistance + 1;
+        String[][] buckets = new String[numDistances][perDistance];
+        int[] sizes = new int[numDistances];
+        int missing = numDistances * perDistance;
+        for (long attempt = 0; attempt < maxAttempts && missing > 0; attempt++) {
+            String state = walk(minDistance + random.nextInt(2 * maxDistance - minDistance + 1));
+            int distance = distance(state);
+            if (distance < minDistance || distance > maxDistance) continue;
+            int bucket = distance - minDistance;
+            if (sizes[bucket] < perDistance) {
+                buckets[bucket][sizes[bucket]++] = state;
+                missing--;
+            }
+        }
+
+        InstanceCorpus corpus = new InstanceCorpus(height, width);
+        for (int i = 0; i < numDistances; i++) {
+            for (int j = 0; j < sizes[i]; j++) {
+                corpus.add(buckets[i][j], minDistance + i);
+            }
+        }
+        return corpus;
+    }
+
+    // Getters & setters
+    /**
+     * Sets the solution used to find the number of moves of the boards
+     * @param solution The solution, or null to leave the distances of uniform boards and walks unknown
+     */
+    public void setSolution(Solution solution) {
+        this.solution = solution;
+    }
+
+    /**
+     * Sets the heuristic of the boards being solved
+     * @param heuristic The heuristic, or null for the built-in heuristics of the game
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        game.setHeuristic(heuristic);
+    }
+}
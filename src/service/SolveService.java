@@ -0,0 +1,413 @@
+package service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import heuristics.HeuristicFactory;
+import slidingpuz.Board;
+import slidingpuz.FlatBoard;
+import slidingpuz.SlidingPuzGame;
+import solutions.Solution;
+import solutions.SolutionFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves puzzles of one board size over HTTP on the loopback interface.
+ *
+ * Each request is handled on its own virtual thread (or a bounded pool of platform threads before Java 21),
+ * which only waits for the result. The searches run on a fixed number of solver threads behind a bounded
+ * queue, and a request is rejected with 429 as soon as the queue is full, instead of waiting behind an ever
+ * longer queue. Requests for a board that is already being solved (or queued) wait for the same search instead
+ * of starting another one, up to a number of requests per search. Every request has a deadline, after which it
+ * is answered with 504. Once the last request of a search has left, a queued search is skipped and a running
+ * one is interrupted. The solutions of {@code SolutionFactory} all stop on an interrupt, either by throwing a
+ * {@code CancellationException} or by returning no moves, and both count as a cancelled search
+ */
+public class SolveService {
+    public static final long DEFAULT_TIMEOUT = 10000;
+    public static final int DEFAULT_MAX_WAITERS = 16;
+
+    private final int height;
+    private final int width;
+    private final int maxWaiters;
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ThreadPoolExecutor solvers;
+    private final ThreadLocal<Solution> solutions;
+    private final ThreadLocal<SlidingPuzGame> games;
+    // The searches queued or running, by the state of the board
+    private final Map<String, Flight> flights;
+
+    // Statistics
+    private final AtomicLong numRequests = new AtomicLong();
+    private final AtomicLong numSearches = new AtomicLong();
+    private final AtomicLong numCoalesced = new AtomicLong();
+    private final AtomicLong numRejected = new AtomicLong();
+    private final AtomicLong numTimeouts = new AtomicLong();
+    private final AtomicLong numSkipped = new AtomicLong();
+    private final AtomicLong numCancelled = new AtomicLong();
+    private final AtomicLong numFailed = new AtomicLong();
+
+    /**
+     * @param height The height of the boards
+     * @param width The width of the boards
+     * @param port The port to listen on, or 0 for any free port
+     * @param numSolvers The number of searches running at the same time
+     * @param queueCapacity The maximum number of searches waiting for a solver
+     * @param maxWaiters The maximum number of requests waiting for the same search
+     * @param solution The name of the solution, accepted by {@code SolutionFactory.create}
+     * @param heuristic The name of the heuristic of the games, accepted by {@code HeuristicFactory.create}
+     */
+    public SolveService(int height, int width, int port, int numSolvers, int queueCapacity, int maxWaiters,
+                        String solution, String heuristic) throws IOException {
+        assert numSolvers >= 1 && queueCapacity >= 1 : "At least 1 solver and 1 queued search required";
+        assert maxWaiters >= 1 : "At least 1 request per search required";
+        this.height = height;
+        this.width = width;
+        this.maxWaiters = maxWaiters;
+        // Fail early on unknown names
+        SolutionFactory.create(solution, height, width);
+        HeuristicFactory.create(heuristic, height, width);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        solvers = new ThreadPoolExecutor(numSolvers, numSolvers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "solver-" + threadCount.getAndIncrement()),
+                new ThreadPoolExecutor.AbortPolicy());
+        solutions = ThreadLocal.withInitial(() -> SolutionFactory.create(solution, height, width));
+        games = ThreadLocal.withInitial(() -> {
+            SlidingPuzGame game = new SlidingPuzGame(height, width);
+            game.setHeuristic(HeuristicFactory.create(heuristic, height, width));
+            return game;
+        });
+        flights = new ConcurrentHashMap<>();
+
+        // Every request waiting for a search can have a thread, with as many spare ones to answer the others
+        requests = newRequestExecutor((numSolvers + queueCapacity) * maxWaiters + numSolvers);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(requests);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    /**
+     * Usage: {@code SolveService h w [port] [solvers] [solution] [heuristic]}. The solution is any name accepted
+     * by {@code SolutionFactory.create} (astar by default), and the heuristic any name accepted by
+     * {@code HeuristicFactory.create} (manhattan by default). Up to 4 searches per solver are queued, each with up
+     * to {@code DEFAULT_MAX_WAITERS} requests.
+     *
+     * {@code GET /solve?state=STATE&timeout=MILLIS} (or {@code POST /solve} with the state as the body) answers
+     * with the moves, with the state in the format of {@code Game.getState()} and the timeout
+     * {@code DEFAULT_TIMEOUT} milliseconds by default. {@code GET /stats} answers with the counters of the service
+     */
+    public static void main(String[] args) throws IOException {
+        assert args.length >= 2 : "At least 2 arguments required";
+        int h = Integer.parseInt(args[0]);
+        int w = Integer.parseInt(args[1]);
+        int port = args.length >= 3 ? Integer.parseInt(args[2]) : 8080;
+        int numSolvers = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        String solution = args.length >= 5 ? args[4] : "astar";
+        String heuristic = args.length >= 6 ? args[5] : "manhattan";
+
+        SolveService service = new SolveService(h, w, port, numSolvers, 4 * numSolvers, DEFAULT_MAX_WAITERS,
+                solution, heuristic);
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        service.start();
+        System.out.printf("Solving %dx%d boards on http://localhost:%d/solve\n", h, w, service.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and stops the solvers, interrupting the running searches
+     */
+    public void stop() {
+        server.stop(0);
+        requests.shutdownNow();
+        solvers.shutdownNow();
+    }
+
+    /**
+     * Solves a board, joining the search of the same board if there is one
+     * @param state The state of the board in the format of {@code Game.getState()}, without past moves
+     * @param timeout The time to wait for the result in milliseconds, which needs to be positive
+     * @return The moves (represented in char) in order
+     * @throws RejectedExecutionException If there are too many searches queued, or too many requests waiting
+     *                                    for the search of the board
+     * @throws TimeoutException If the search did not finish in time
+     * @throws ExecutionException If the search failed
+     */
+    public String solve(String state, long timeout)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        assert timeout > 0 : "The timeout needs to be positive";
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        Flight[] created = new Flight[1];
+        boolean[] full = new boolean[1];
+        // The count of waiters is only changed while the entry is locked by the map
+        Flight flight = flights.compute(state, (key, current) -> {
+            if (current == null) {
+                current = created[0] = new Flight();
+            } else if (current.waiters >= maxWaiters) {
+                full[0] = true;
+                return current;
+            }
+            current.waiters++;
+            return current;
+        });
+
+        if (full[0]) {
+            numRejected.incrementAndGet();
+            throw new RejectedExecutionException("Too many requests waiting for the search");
+        } else if (flight == created[0]) {
+            try {
+                solvers.execute(() -> search(state, flight));
+                numSearches.incrementAndGet();
+            } catch (RejectedExecutionException e) {
+                flights.remove(state, flight);
+                flight.result.completeExceptionally(e);
+            }
+        } else {
+            numCoalesced.incrementAndGet();
+        }
+
+        try {
+            return flight.result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                numRejected.incrementAndGet();
+                throw (RejectedExecutionException) e.getCause();
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            numTimeouts.incrementAndGet();
+            leave(state, flight);
+            throw e;
+        } catch (InterruptedException e) {
+            leave(state, flight);
+            throw e;
+        }
+    }
+
+    // Helpers
+    /**
+     * Removes a request from a search, and cancels the search if it was the last one
+     */
+    private void leave(String state, Flight flight) {
+        boolean[] last = new boolean[1];
+        flights.computeIfPresent(state, (key, current) -> {
+            if (current == flight && --current.waiters == 0) {
+                // Later requests for the board start a new search
+                last[0] = true;
+                return null;
+            }
+            return current;
+        });
+        if (last[0]) {
+            synchronized (flight) {
+                flight.cancelled = true;
+                if (flight.thread != null) {
+                    flight.thread.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs on a solver thread
+     */
+    private void search(String state, Flight flight) {
+        synchronized (flight) {
+            // Skip the search if all requests have given up while it was queued
+            if (flight.cancelled) {
+                numSkipped.incrementAndGet();
+                flight.result.completeExceptionally(new CancellationException("No requests are waiting"));
+                return;
+            }
+            flight.thread = Thread.currentThread();
+        }
+
+        try {
+            SlidingPuzGame game = games.get();
+            game.loadState(state);
+            String moves = solutions.get().solve(game, 0);
+            if (!game.isFinalState()) {
+                // The parallel solutions return no moves when they are interrupted
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("No requests are waiting");
+                }
+                throw new IllegalStateException("No solution found");
+            }
+            flight.result.complete(moves);
+        } catch (CancellationException e) {
+            numCancelled.incrementAndGet();
+            flight.result.completeExceptionally(e);
+        } catch (Throwable e) {
+            numFailed.incrementAndGet();
+            flight.result.completeExceptionally(e);
+            // A failed search may leave the solution unusable, so the next search gets a new one
+            solutions.remove();
+        } finally {
+            synchronized (flight) {
+                flight.thread = null;
+                // Clear an interrupt that came too late to stop the search, so it does not stop the next one
+                Thread.interrupted();
+            }
+            flights.remove(state, flight);
+        }
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            numRequests.incrementAndGet();
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String state = params.get("state");
+            if (state == null && exchange.getRequestMethod().equals("POST")) {
+                state = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).trim();
+            }
+            String error = validate(state);
+            if (error != null) {
+                respond(exchange, 400, error);
+                return;
+            }
+            long timeout;
+            try {
+                timeout = params.containsKey("timeout") ? Long.parseLong(params.get("timeout")) : DEFAULT_TIMEOUT;
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "Invalid timeout: " + params.get("timeout"));
+                return;
+            }
+            if (timeout <= 0) {
+                respond(exchange, 400, "The timeout needs to be positive: " + timeout);
+                return;
+            }
+
+            try {
+                respond(exchange, 200, solve(state, timeout));
+            } catch (RejectedExecutionException e) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, e.getMessage() != null ? e.getMessage() : "Too many searches in progress");
+            } catch (TimeoutException e) {
+                respond(exchange, 504, "The search did not finish within " + timeout + " ms");
+            } catch (ExecutionException e) {
+                respond(exchange, 500, "The search failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, "The service is stopping");
+            }
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String stats = String.format(
+                    "requests\t%d\nsearches\t%d\ncoalesced\t%d\nrejected\t%d\ntimeouts\t%d\nskipped\t%d\n"
+                            + "cancelled\t%d\nfailed\t%d\nrunning\t%d\nqueued\t%d",
+                    numRequests.get(), numSearches.get(), numCoalesced.get(), numRejected.get(), numTimeouts.get(),
+                    numSkipped.get(), numCancelled.get(), numFailed.get(), solvers.getActiveCount(),
+                    solvers.getQueue().size());
+            respond(exchange, 200, stats);
+        }
+    }
+
+    /**
+     * Check if a state is a solvable board of the size of the service
+     * @return The reason the state is invalid, or null if it is valid
+     */
+    private String validate(String state) {
+        int n = height * width;
+        if (state == null || state.length() != n) {
+            return "The state needs " + n + " tiles";
+        }
+        Board board = FlatBoard.create(height, width);
+        boolean[] seen = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int tile = state.charAt(i) - '0';
+            if (tile < 0 || tile >= n || seen[tile]) {
+                return "Invalid or repeated tile at " + i;
+            }
+            seen[tile] = true;
+            board.setAt(i, tile);
+        }
+        return board.isSolvable() ? null : "The board is not solvable";
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int split = pair.indexOf('=');
+            if (split == -1) continue;
+            params.put(URLDecoder.decode(pair.substring(0, split), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task if the runtime has them (Java 21), and a pool of
+     * platform threads otherwise. Found by reflection, so the sources still build with Java 17
+     * @param maxThreads The maximum number of platform threads, after which the requests are queued
+     */
+    private static ExecutorService newRequestExecutor(int maxThreads) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    // Getters & setters
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * A search queued or running, and the number of requests waiting for it
+     */
+    private static class Flight {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private int waiters;
+        // Guarded by the flight
+        private Thread thread;
+        private boolean cancelled;
+    }
+}
@@ -0,0 +1,107 @@
+package slidingpuz;
+
+import java.util.Random;
+
+/**
+ * The shuffling and the solvability check shared by the boards, written over the index-based accessors
+ */
+abstract class AbstractBoard implements Board {
+    @Override
+    public Board shuffle() {
+        return shuffle(new Random());
+    }
+
+    @Override
+    public Board shuffle(Random rand) {
+        int width = getWidth();
+        int maximum = getHeight() * width - 1;
+        for (int i = 0; i < maximum; i++) {
+            // Find a random index >= i, and switch the contents of two indexes
+            swapAt(i, i + rand.nextInt(maximum - i + 1));
+        }
+
+        // To guarantee a valid state (see isSolvable)
+        if (!isSolvable()) {
+            // The parity of current state is incorrect
+            // Thus we need to flip it back by swapping the last two elements in the last row
+            //   that does not contain the empty cell
+            int row = getEmptyIndex() / width == getHeight() - 1 ? getHeight() - 2 : getHeight() - 1;
+            swapAt(row * width + width - 2, row * width + width - 1);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isSolvable() {
+        /*
+         * The board can be treated as a permutation (The empty cell is h*w).
+         * Then, the current state is valid <==> the parity of the permutation is the same as the parity
+         *   of the displacement (diff_row + diff_col) of the empty cell from the bottom right corner.
+         */
+        int height = getHeight(), width = getWidth();
+        boolean stateIsEven = parity() == 1;
+        int empty = getEmptyIndex();
+        int displacement = ((height - 1) - empty / width) + ((width - 1) - empty % width);
+        boolean dispIsEven = displacement % 2 == 0;
+        return stateIsEven == dispIsEven;
+
+        /*
+         * Proof of this approach:
+         * Note that all valid states can be transformed to the default state within finite steps.
+         * Each step is a transposition, thus flips the parity of the state. We also know that the
+         * parity of the default state is even. Therefore, the parity of the current state is equal
+         * to the parity of the steps required to transform to the default state.
+         *
+         * On the other hand, each step moves the empty cell to an adjacent location, thus changing
+         * the parity of its displacement from the bottom right corner. Therefore, the parity of the
+         * displacement is also equal to the steps taken to transform to the default state.
+         *
+         * Therefore, state is valid ==> parity of state's permutation == parity of empty cell's
+         * displacement from bottom right corner.
+         *
+         * We still need to prove the other direction. Let's take width = 3 and height = 4 for example.
+         * We define e and e' as the following states:
+         *                     [1  2  3  4 ]                [1  2  3  4 ]
+         *                 e = [5  6  7  8 ]    and    e' = [5  6  7  11]
+         *                     [9  10 11 * ]                [9  10 8  * ]
+         * Note that all states p can be transformed into either e or e' (but not both), so we can
+         * categorize them into two groups E and E'. Define phi as a function that switches the 8
+         * and 11 entries of p. Then phi is a bijection (phi is the inverse of itself). Also, p and
+         * phi(p) cannot belong to the same group for obvious reasons. Therefore, |E| == |E'|. Since
+         * all states in E are valid, then the number of valid states is half of all permutations.
+         * This is sufficient to prove that: parity of state's permutation == parity of empty cell's
+         * displacement from bottom right corner ==> state is valid.
+         */
+    }
+
+    // Helpers
+    /**
+     * Finds the parity of the board's permutation (the empty cell = w*h)
+     * @return -1 if odd permutation and 1 if even permutation
+     */
+    private int parity() {
+        /*
+         * Note that the board is a permutation of numbers 1 ~ width * height
+         * All permutations can be decomposed into disjoint cycles
+         * The parity of the permutation is the product of the parity of cycles
+         * The parity of each cycle is calculated as (-1) ^ (length-1)
+         * Therefore, parity of permutation = parity of (length - number of cycles)
+         */
+        int n = getHeight() * getWidth();
+
+        // index 0 actually refers to the empty cell / bottom right position
+        boolean[] visited = new boolean[n];
+        int numCycles = 0;
+        for (int i = 0; i < n; i++) {
+            // Skip if i is already used in previous cycles
+            if (visited[i]) continue;
+            // Shift backward by 1 to match the board's index
+            for (int next = i; !visited[next]; next = getAt((next + n - 1) % n)) {
+                visited[next] = true;
+            }
+            numCycles++;
+        }
+
+        return (n - numCycles) % 2 == 0 ? 1 : -1;
+    }
+}
@@ -2,6 +2,8 @@ package slidingpuz;
 
 import utils.Pair;
 
+import java.util.Random;
+
 public interface Board {
     /**
      * Get the value of a certain position on the board
@@ -19,6 +21,20 @@ public interface Board {
      */
     void set(int r, int c, int value);
 
+    /**
+     * Get the value of a cell by its row-major index, without checking the bounds in 2D
+     * @param index The index of the cell (r * width + c)
+     * @return The value of the cell
+     */
+    int getAt(int index);
+
+    /**
+     * Set the value of a cell by its row-major index
+     * @param index The index of the cell (r * width + c)
+     * @param value The value being set
+     */
+    void setAt(int index, int value);
+
     /**
      * Resets the board to default location
      * @return The board itself
@@ -31,6 +47,20 @@ public interface Board {
      */
     Board shuffle();
 
+    /**
+     * Shuffles the board into a VALID state, with every valid state equally likely. The same random number
+     * generator state always gives the same board
+     * @param random The source of randomness
+     * @return The board itself
+     */
+    Board shuffle(Random random);
+
+    /**
+     * Checks if the board can be transformed into the default state
+     * @return Whether the board is in a VALID state
+     */
+    boolean isSolvable();
+
     /**
      * Swaps the values of two positions on the board
      * @param r1 Row of first position
@@ -40,6 +70,13 @@ public interface Board {
      */
     void swap(int r1, int c1, int r2, int c2);
 
+    /**
+     * Swaps the values of two cells by their row-major indices
+     * @param index1 The index of the first cell
+     * @param index2 The index of the second cell
+     */
+    void swapAt(int index1, int index2);
+
     /**
      * Checks if the position is valid
      * @param r The row
@@ -57,4 +94,17 @@ public interface Board {
      * @return a {@code Pair} containing the position of the empty cell
      */
     Pair getEmptyCell();
+
+    /**
+     * Get the row-major index of the empty cell, without allocating
+     * @return The index of the empty cell
+     */
+    int getEmptyIndex();
+
+    /**
+     * Find the cell holding a value
+     * @param value The value
+     * @return The row-major index of the cell
+     */
+    int indexOf(int value);
 }
@@ -0,0 +1,82 @@
+package slidingpuz;
+
+public class BoardCodec {
+    private final int height;
+    private final int width;
+    private final int bits;
+    private final int words;
+    private final long mask;
+
+    public BoardCodec(int height, int width) {
+        assert height >= 2 && width >= 2 : "Height and width need to be at least 2";
+        this.height = height;
+        this.width = width;
+        // Each tile takes just enough bits to hold the largest value (h*w - 1)
+        bits = 32 - Integer.numberOfLeadingZeros(height * width - 1);
+        words = (height * width * bits + 63) / 64;
+        mask = (1L << bits) - 1;
+    }
+
+    /**
+     * Packs the tiles of a board into consecutive {@code long} words. The tiles are stored in row-major order,
+     * {@code bits} bits per tile, and a tile may span two adjacent words
+     * @param board The board to be encoded
+     * @param dest The destination array
+     * @param offset The index of the first word to be written
+     */
+    public void encode(Board board, long[] dest, int offset) {
+        for (int i = 0; i < words; i++) {
+            dest[offset + i] = 0;
+        }
+        for (int i = 0; i < height * width; i++) {
+            long value = board.getAt(i);
+            int bit = i * bits;
+            int word = offset + (bit >>> 6);
+            int shift = bit & 63;
+            dest[word] |= value << shift;
+            // Write the overflowing high bits into the next word
+            if (shift + bits > 64) {
+                dest[word + 1] |= value >>> (64 - shift);
+            }
+        }
+    }
+
+    /**
+     * Populates a board with the tiles packed by {@link #encode}
+     * @param src The source array
+     * @param offset The index of the first word to be read
+     * @param board The board to be populated
+     */
+    public void decode(long[] src, int offset, Board board) {
+        for (int i = 0; i < height * width; i++) {
+            board.setAt(i, get(src, offset, i));
+        }
+    }
+
+    /**
+     * Reads a single tile from a packed state without decoding the whole board
+     * @param src The source array
+     * @param offset The index of the first word of the state
+     * @param index The row-major index of the tile
+     * @return The value of the tile
+     */
+    public int get(long[] src, int offset, int index) {
+        int bit = index * bits;
+        int word = offset + (bit >>> 6);
+        int shift = bit & 63;
+        long value = src[word] >>> shift;
+        if (shift + bits > 64) {
+            value |= src[word + 1] << (64 - shift);
+        }
+        return (int) (value & mask);
+    }
+
+    // Getters & setters
+    public int getBits() {
+        return bits;
+    }
+
+    public int getWords() {
+        return words;
+    }
+}
@@ -0,0 +1,83 @@
+package slidingpuz;
+
+import utils.PermutationRank;
+
+/**
+ * Maps the valid boards of a size to the integers in [0, (h*w)!/2), so that tables over all boards can be
+ * plain arrays indexed by rank. The board is ranked as the permutation mapping each tile (the empty cell being
+ * the last one) to its row-major index. Only half of the permutations are valid (see
+ * {@link Board#isSolvable()}), and the permutations of rank r and r + (h*w)!/2 differ by a swap of tiles 1 and 2,
+ * which changes the parity without moving the empty cell, so exactly one of them is valid.
+ *
+ * An instance keeps its own scratch arrays and should not be shared by multiple threads
+ */
+public class BoardRank {
+    private final int height;
+    private final int width;
+    private final PermutationRank ranks;
+    private final int[] permutation;
+
+    /**
+     * @param height The height of the boards
+     * @param width The width of the boards, such that h*w is at most 20
+     */
+    public BoardRank(int height, int width) {
+        this.height = height;
+        this.width = width;
+        ranks = new PermutationRank(height * width);
+        permutation = new int[height * width];
+    }
+
+    /**
+     * Find the rank of a valid board
+     * @param board The board
+     * @return The rank in [0, (h*w)!/2)
+     */
+    public long rank(Board board) {
+        int n = height * width;
+        for (int i = 0; i < n; i++) {
+            int tile = board.getAt(i);
+            permutation[tile == 0 ? n - 1 : tile - 1] = i;
+        }
+        return ranks.rank(permutation) % size();
+    }
+
+    /**
+     * Populates a board with the valid board of a rank
+     * @param rank The rank in [0, (h*w)!/2)
+     * @param board The board to be populated
+     */
+    public void unrank(long rank, Board board) {
+        assert rank >= 0 && rank < size() : "The rank is out of range";
+        int n = height * width;
+        boolean odd = ranks.unrank(rank, permutation);
+        // The final state is the identity, and every move is a transposition moving the empty cell by 1
+        int empty = permutation[n - 1];
+        int displacement = (height - 1 - empty / width) + (width - 1 - empty % width);
+        if (odd != (displacement % 2 == 1)) {
+            int temp = permutation[0];
+            permutation[0] = permutation[1];
+            permutation[1] = temp;
+        }
+        for (int tile = 0; tile < n; tile++) {
+            board.setAt(permutation[tile], tile == n - 1 ? 0 : tile + 1);
+        }
+    }
+
+    /**
+     * Get the number of valid boards
+     * @return (h*w)!/2
+     */
+    public long size() {
+        return ranks.size() / 2;
+    }
+
+    // Getters & setters
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+}
@@ -0,0 +1,116 @@
+package slidingpuz;
+
+import utils.Pair;
+
+/**
+ * A board kept in a flat array of tiles in row-major order, together with the inverse array holding the cell
+ * of each tile. The empty cell and the cell of any tile are found in constant time, and the index-based
+ * accessors never allocate. Both arrays are bytes, which limits the board to {@code MAX_CELLS} cells
+ */
+public class FlatBoard extends AbstractBoard {
+    public static final int MAX_CELLS = 256;
+
+    private final int height;
+    private final int width;
+    private final byte[] tiles;
+    private final byte[] cells;  // The cell of each tile
+
+    public FlatBoard(int height, int width) {
+        assert height >= 2 && width >= 2 : "Height and width need to be at least 2";
+        assert height * width <= MAX_CELLS : "The board has more than " + MAX_CELLS + " cells";
+        this.height = height;
+        this.width = width;
+        tiles = new byte[height * width];
+        cells = new byte[height * width];
+        reset();
+    }
+
+    /**
+     * Creates the board of a size using the most compact implementation available
+     * @param height The height of the board
+     * @param width The width of the board
+     * @return A {@code FlatBoard} if the board has at most {@code MAX_CELLS} cells, otherwise a {@code BoardImpl}
+     */
+    public static Board create(int height, int width) {
+        return height * width <= MAX_CELLS ? new FlatBoard(height, width) : new BoardImpl(height, width);
+    }
+
+    @Override
+    public int get(int r, int c) {
+        assert inBound(r, c) : "(r, c) = (" + r + ", " + c + ") is out of bounds";
+        return tiles[r * width + c] & 0xFF;
+    }
+
+    @Override
+    public void set(int r, int c, int value) {
+        assert inBound(r, c) : "(r, c) = (" + r + ", " + c + ") is out of bounds";
+        setAt(r * width + c, value);
+    }
+
+    @Override
+    public int getAt(int index) {
+        return tiles[index] & 0xFF;
+    }
+
+    @Override
+    public void setAt(int index, int value) {
+        tiles[index] = (byte) value;
+        cells[value] = (byte) index;
+    }
+
+    @Override
+    public Board reset() {
+        int n = height * width;
+        for (int i = 0; i < n; i++) {
+            setAt(i, (i + 1) % n);
+        }
+        return this;
+    }
+
+    @Override
+    public void swap(int r1, int c1, int r2, int c2) {
+        swapAt(r1 * width + c1, r2 * width + c2);
+    }
+
+    @Override
+    public void swapAt(int index1, int index2) {
+        byte tile1 = tiles[index1];
+        byte tile2 = tiles[index2];
+        tiles[index1] = tile2;
+        tiles[index2] = tile1;
+        cells[tile1 & 0xFF] = (byte) index2;
+        cells[tile2 & 0xFF] = (byte) index1;
+    }
+
+    @Override
+    public boolean inBound(int r, int c) {
+        return r >= 0 && r < height && c >= 0 && c < width;
+    }
+
+    // Getters & setters
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public Pair getEmptyCell() {
+        int empty = getEmptyIndex();
+        return new Pair(empty / width, empty % width);
+    }
+
+    @Override
+    public int getEmptyIndex() {
+        return cells[0] & 0xFF;
+    }
+
+    @Override
+    public int indexOf(int value) {
+        return cells[value] & 0xFF;
+    }
+}
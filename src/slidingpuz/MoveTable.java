@@ -0,0 +1,68 @@
+package slidingpuz;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The successors of every position of the empty cell on the boards of a size: the cell of the tile that each
+ * move slides into the empty cell, and the bitmask of the valid moves. The moves are indexed in the order of
+ * {@link SlidingPuzGame#getAllMoves()} (up, down, left, right). The tables are built once for each board size
+ * and shared by all games
+ */
+public class MoveTable {
+    public static final int NUM_MOVES = 4;
+    private static final Map<String, MoveTable> TABLES = new HashMap<>();
+
+    private final int[] targets;  // The target of each move from each cell, at cell * NUM_MOVES + move
+    private final int[] masks;    // The valid moves from each cell
+
+    private MoveTable(int height, int width) {
+        int n = height * width;
+        targets = new int[n * NUM_MOVES];
+        masks = new int[n];
+        for (int empty = 0; empty < n; empty++) {
+            int r = empty / width, c = empty % width;
+            // The moves are named by the direction the tile moves in, opposite to the empty cell
+            int[] cells = {
+                    r < height - 1 ? empty + width : -1,
+                    r > 0 ? empty - width : -1,
+                    c < width - 1 ? empty + 1 : -1,
+                    c > 0 ? empty - 1 : -1 };
+            for (int move = 0; move < NUM_MOVES; move++) {
+                targets[empty * NUM_MOVES + move] = cells[move];
+                if (cells[move] != -1) {
+                    masks[empty] |= 1 << move;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the shared table of a board size
+     * @param height The height of the boards
+     * @param width The width of the boards
+     * @return The table
+     */
+    public static synchronized MoveTable get(int height, int width) {
+        return TABLES.computeIfAbsent(height + "x" + width, key -> new MoveTable(height, width));
+    }
+
+    /**
+     * Find the tile that a move slides into the empty cell
+     * @param empty The index of the empty cell
+     * @param move The index of the move
+     * @return The index of the cell of the tile, or -1 if the move is not valid
+     */
+    public int getTarget(int empty, int move) {
+        return targets[empty * NUM_MOVES + move];
+    }
+
+    /**
+     * Get the valid moves from a position of the empty cell
+     * @param empty The index of the empty cell
+     * @return A bitmask with bit i set if the move of index i is valid
+     */
+    public int getMask(int empty) {
+        return masks[empty];
+    }
+}
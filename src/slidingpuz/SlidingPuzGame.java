@@ -2,24 +2,74 @@ package slidingpuz;
 
 import game.Game;
 import game.Move;
-import utils.Pair;
+import heuristics.Heuristic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public class SlidingPuzGame implements Game {
+    private static final Move[] ALL_MOVES = {
+            SlidingPuzMove.UP, SlidingPuzMove.DOWN, SlidingPuzMove.LEFT, SlidingPuzMove.RIGHT };
+    private static final int[] REVERSES = new int[ALL_MOVES.length];
+
+    static {
+        for (int i = 0; i < ALL_MOVES.length; i++) {
+            REVERSES[i] = Arrays.asList(ALL_MOVES).indexOf(ALL_MOVES[i].reverse());
+        }
+    }
+
     private final Board board;
+    private final BoardCodec codec;
+    private final MoveTable moveTable;
     private final StringBuilder pastMoves;
 
+    // Heuristic components of the current state, kept up to date by every move
+    private int manhattan;
+    private final int[] leftRuns;     // The number of correct cells at the start of each row
+    private final int[] rightRuns;    // The number of correct cells at the end of each row
+    private final int[] bottomLefts;  // Scratch space for the bottom left rectangle of each row
+    private Heuristic heuristic;      // Replaces the built-in heuristics if specified
+
     public SlidingPuzGame(int height, int width) {
-        board = new BoardImpl(height, width);
+        board = FlatBoard.create(height, width);
+        codec = new BoardCodec(height, width);
+        moveTable = MoveTable.get(height, width);
         pastMoves = new StringBuilder();
+        leftRuns = new int[height];
+        rightRuns = new int[height];
+        bottomLefts = new int[height];
+        resetHeuristics();
     }
 
     @Override
     public void restart() {
-        board.reset().shuffle();
+        restart(new Random());
+    }
+
+    /**
+     * Same as {@link #restart()}, but shuffles with a given random number generator, so the board can be
+     * reproduced from its seed
+     * @param random The source of randomness
+     */
+    public void restart(Random random) {
+        board.reset().shuffle(random);
         pastMoves.setLength(0);
+        resetHeuristics();
+    }
+
+    @Override
+    public SlidingPuzGame copy() {
+        SlidingPuzGame game = new SlidingPuzGame(board.getHeight(), board.getWidth());
+        long[] state = new long[codec.getWords()];
+        codec.encode(board, state, 0);
+        game.unpackState(state, 0);
+        game.pastMoves.append(pastMoves);
+        if (heuristic != null) {
+            game.setHeuristic(heuristic.copy());
+        }
+        return game;
     }
 
     @Override
@@ -35,6 +85,7 @@ public class SlidingPuzGame implements Game {
             int r = i / w, c = i % w;
             board.set(r, c, state.charAt(i + pastMoves.length()) - '0');
         }
+        resetHeuristics();
     }
 
     @Override
@@ -52,6 +103,28 @@ public class SlidingPuzGame implements Game {
         return state.toString();
     }
 
+    @Override
+    public int getPackedSize() {
+        return codec.getWords();
+    }
+
+    @Override
+    public void packState(long[] dest, int offset) {
+        codec.encode(board, dest, offset);
+    }
+
+    @Override
+    public void unpackState(long[] src, int offset) {
+        pastMoves.setLength(0);
+        codec.decode(src, offset, board);
+        resetHeuristics();
+    }
+
+    @Override
+    public void packFinalState(long[] dest, int offset) {
+        codec.encode(FlatBoard.create(board.getHeight(), board.getWidth()), dest, offset);
+    }
+
     @Override
     public String getFormattedState() {
         int h = board.getHeight();
@@ -82,34 +155,33 @@ public class SlidingPuzGame implements Game {
 
     @Override
     public boolean move(Move direction) {
-        Pair emptyCell = board.getEmptyCell();
-        Pair target = emptyCell.clone();
-        switch ((SlidingPuzMove) direction) {
-            case UP:
-                target.x++;
-                break;
-            case DOWN:
-                target.x--;
-                break;
-            case LEFT:
-                target.y++;
-                break;
-            case RIGHT:
-                target.y--;
-                break;
-            default:
-                return false;
+        int index = indexOf((SlidingPuzMove) direction);
+        int empty = board.getEmptyIndex();
+        // The tile next to the empty cell that moves into it
+        int target = index == -1 ? -1 : moveTable.getTarget(empty, index);
+        if (target == -1) {
+            return false;
         }
 
-        // Valid moves will result in valid row and column of target
-        if (board.inBound(target.x, target.y)) {
-            // Swap target and empty cell
-            board.swap(target.x, target.y, emptyCell.x, emptyCell.y);
-            pastMoves.append(direction.toChar());
-            return true;
+        // Swap target and empty cell
+        int w = board.getWidth();
+        int r = empty / w, c = empty % w;
+        int value = board.getAt(target);
+        board.swapAt(target, empty);
+        pastMoves.append(direction.toChar());
+
+        // Only the moved tile changes its displacement, and only the rows of the two cells
+        // can change their runs of correct cells
+        int targetR = target / w, targetC = target % w;
+        manhattan += displacement(value, r, c) - displacement(value, targetR, targetC);
+        updateRuns(targetR);
+        if (r != targetR) {
+            updateRuns(r);
         }
-
-        return false;
+        if (heuristic != null) {
+            heuristic.update(board, value, target, empty);
+        }
+        return true;
     }
 
     @Override
@@ -128,31 +200,39 @@ public class SlidingPuzGame implements Game {
 
     @Override
     public List<Move> getValidMoves() {
-        List<Move> moves = new ArrayList<>();
-        Pair emptyCell = board.getEmptyCell();
+        Move[] buffer = new Move[ALL_MOVES.length];
+        return new ArrayList<>(Arrays.asList(buffer).subList(0, getValidMoves(buffer)));
+    }
 
-        // Find valid moves according to the position of the empty cell
-        if (emptyCell.x < board.getHeight() - 1) {
-            moves.add(SlidingPuzMove.UP);
-        }
-        if (emptyCell.x > 0) {
-            moves.add(SlidingPuzMove.DOWN);
-        }
-        if (emptyCell.y < board.getWidth() - 1) {
-            moves.add(SlidingPuzMove.LEFT);
+    @Override
+    public int getValidMoves(Move[] dest) {
+        // Remove the move cancelling the last executed move for optimization
+        int mask = getValidMoveMask();
+        int n = pastMoves.length();
+        int lastMove = n == 0 ? -1 : indexOf(SlidingPuzMove.fromChar(pastMoves.charAt(n - 1)));
+        if (lastMove != -1) {
+            mask &= ~(1 << REVERSES[lastMove]);
         }
-        if (emptyCell.y > 0) {
-            moves.add(SlidingPuzMove.RIGHT);
+        int count = 0;
+        for (; mask != 0; mask &= mask - 1) {
+            dest[count++] = ALL_MOVES[Integer.numberOfTrailingZeros(mask)];
         }
+        return count;
+    }
 
-        // Remove the last executed move for optimization
-        SlidingPuzMove lastMove = SlidingPuzMove.STAY;
-        if (pastMoves.length() > 0) {
-            lastMove = SlidingPuzMove.fromChar(pastMoves.charAt(pastMoves.length() - 1));
-        }
-        moves.remove(lastMove.reverse());
+    @Override
+    public int getValidMoveMask() {
+        return moveTable.getMask(board.getEmptyIndex());
+    }
+
+    @Override
+    public Move[] getAllMoves() {
+        return ALL_MOVES;
+    }
 
-        return moves;
+    @Override
+    public int[] getReverseMoves() {
+        return REVERSES;
     }
 
     @Override
@@ -167,7 +247,8 @@ public class SlidingPuzGame implements Game {
 
     @Override
     public boolean isFinalState() {
-        return isFinalState(this.getState());
+        // All tiles are at their target positions, so the empty cell is also at the bottom right corner
+        return manhattan == 0;
     }
 
     @Override
@@ -188,7 +269,11 @@ public class SlidingPuzGame implements Game {
 
     @Override
     public int evaluate() {
-        return evaluate(getState());
+        if (heuristic != null) {
+            return heuristic.value();
+        }
+        // Same combination as evaluate(String), computed from the components kept up to date by move()
+        return manhattan + countCornerRect(0b111) + countCornerRect(0b100);
     }
 
     @Override
@@ -202,6 +287,15 @@ public class SlidingPuzGame implements Game {
                 + countCornerRect(state, 0b100);
     }
 
+    @Override
+    public int estimate() {
+        if (heuristic != null) {
+            return heuristic.value();
+        }
+        // Each move decreases the manhattan distance by at most 1
+        return manhattan;
+    }
+
     // Heuristics
     private int manhattanDist(String state) {
         /*
@@ -341,7 +435,99 @@ public class SlidingPuzGame implements Game {
         return count;
     }
 
+    /**
+     * Same as {@link #countCornerRect(String, int)} on the CURRENT state. Each rectangle is derived from the
+     * runs of correct cells at both ends of the rows, so the cost is linear in the height of the board
+     */
+    private int countCornerRect(int cornerMask) {
+        int h = board.getHeight();
+        int w = board.getWidth();
+
+        // Bottom left corner (mask = 4): the rectangles grow from the bottom row, excluding the top row
+        int bottomLeft = w;
+        for (int r = h - 1; r >= 0; r--) {
+            bottomLeft = r > 0 ? Math.min(bottomLeft, leftRuns[r]) : 0;
+            bottomLefts[r] = bottomLeft;
+        }
+
+        // Top left (mask = 1) and top right (mask = 2) corners: the rectangles grow from the top row
+        int topLeft = w, topRight = w;
+        int count = 0;
+        for (int r = 0; r < h; r++) {
+            topLeft = Math.min(topLeft, leftRuns[r]);
+            topRight = Math.min(topRight, rightRuns[r]);
+            int left = Math.max((cornerMask & 1) != 0 ? topLeft : 0, (cornerMask & 4) != 0 ? bottomLefts[r] : 0);
+            int right = (cornerMask & 2) != 0 ? topRight : 0;
+            // Count the cells of the row not covered by any rectangle
+            count += w - Math.min(w, left + right);
+        }
+
+        return count;
+    }
+
+    /**
+     * Recomputes all heuristic components from scratch. Called whenever the whole board is replaced
+     */
+    private void resetHeuristics() {
+        int h = board.getHeight();
+        int w = board.getWidth();
+        manhattan = 0;
+        for (int i = 0; i < h * w; i++) {
+            manhattan += displacement(board.getAt(i), i / w, i % w);
+        }
+        for (int r = 0; r < h; r++) {
+            updateRuns(r);
+        }
+        if (heuristic != null) {
+            heuristic.reset(board);
+        }
+    }
+
+    /**
+     * Recomputes the runs of correct cells at both ends of a row
+     * @param r The row
+     */
+    private void updateRuns(int r) {
+        int w = board.getWidth();
+        int left = 0;
+        while (left < w && isCorrectAt(r, left)) {
+            left++;
+        }
+        int right = 0;
+        while (right < w && isCorrectAt(r, w - 1 - right)) {
+            right++;
+        }
+        leftRuns[r] = left;
+        rightRuns[r] = right;
+    }
+
+    /**
+     * Find the manhattan distance between a position and the target position of a value
+     * @param value The value (the empty cell does not count)
+     * @param r The row of the position
+     * @param c The column of the position
+     * @return The manhattan distance, or 0 for the empty cell
+     */
+    private int displacement(int value, int r, int c) {
+        if (value == 0) return 0;
+        int w = board.getWidth();
+        return Math.abs((value - 1) / w - r) + Math.abs((value - 1) % w - c);
+    }
+
+    private boolean isCorrectAt(int r, int c) {
+        int index = r * board.getWidth() + c;
+        return board.getAt(index) == (index + 1) % (board.getHeight() * board.getWidth());
+    }
+
     // Helpers
+    /**
+     * Find the index of a move in {@code ALL_MOVES}, which lists the moves in their declaration order after STAY
+     * @return The index, or -1 for STAY
+     */
+    private static int indexOf(SlidingPuzMove move) {
+        return move.ordinal() - 1;
+    }
+
     /**
      * Check if a given TRIMMED state is incorrect (does not match the final state) at a given position.
      * @param trimmedState Trimmed state (without the moves in the front)
@@ -358,6 +544,21 @@ public class SlidingPuzGame implements Game {
     }
 
     // Getters & setters
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Replace the built-in heuristics used by {@link #evaluate()} and {@link #estimate()}
+     * @param heuristic An admissible heuristic, or null to restore the built-in heuristics
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+        if (heuristic != null) {
+            heuristic.reset(board);
+        }
+    }
+
     public int getHeight() {
         return board.getHeight();
     }
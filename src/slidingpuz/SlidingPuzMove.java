@@ -21,6 +21,7 @@ public enum SlidingPuzMove implements Move {
         }
     }
 
+    @Override
     public SlidingPuzMove reverse() {
         switch (this) {
             case UP:
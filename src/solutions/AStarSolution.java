@@ -2,78 +2,281 @@ package solutions;
 
 import game.Game;
 import game.Move;
+import utils.StateTable;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Arrays;
+
+public class AStarSolution extends SearchSolution {
+    /**
+     * The node budget that fits half of the memory available when a search starts
+     */
+    public static final int FIT_HEAP = 0;
+    // The f of a forgotten node that does not need to be generated again
+    private static final int INF = Integer.MAX_VALUE;
 
-public class AStarSolution implements Solution {
     public int threshold;
+    private final int maxNodes;
+    private PerimeterTable perimeter;
 
-    public AStarSolution(int threshold) {
+    // The data structures of the current search
+    private NodeStore nodes;
+    private StateTable bestNodes;
+    private final BucketOpenList pq = new BucketOpenList();
+    private int budget;
+
+    // Only used when the number of nodes is bounded
+    private int[] childCounts;
+    private int[] forgotten;  // The least f of the forgotten children of each node
+
+    /**
+     * @param threshold The greatest score + steps above the best one found so far of the nodes kept
+     * @param maxNodes The greatest number of nodes kept at once, or {@link #FIT_HEAP}. When it is reached,
+     *                 the nodes with the greatest steps + score are forgotten (see {@link #solve})
+     */
+    public AStarSolution(int threshold, int maxNodes) {
+        assert maxNodes >= 0 : "The node budget needs to be non-negative";
         this.threshold = threshold;
+        this.maxNodes = maxNodes;
+    }
+
+    public AStarSolution(int threshold) {
+        this(threshold, Integer.MAX_VALUE);
     }
 
     public AStarSolution() {
-        this.threshold = Integer.MAX_VALUE;
+        this(Integer.MAX_VALUE);
     }
 
     @Override
     public String solve(Game game, int verbose) {
         /*
-         * This solution uses a priority queue to iterate over all possible states that can be reached
-         * by the starting state
+         * This solution uses a bucketed open list to iterate over all possible states that can be reached
+         * by the starting state. The states are kept packed in a node store, and each node only remembers
+         * its parent and the last move, so the moves are rebuilt once the final state is reached.
+         *
+         * Each board configuration is mapped to the node reaching it with the fewest steps so far. A new
+         * node is only created if it improves on that, and nodes that have been superseded are skipped
+         * when removed from the queue. Thus each configuration is expanded once unless a shorter path to
+         * it is found.
+         *
+         * If the number of nodes is bounded, the search forgets nodes instead of running out of memory (as in
+         * SMA*). When the budget is reached, the leaves with the greatest steps + score are removed from the
+         * open list, and the least steps + score of the forgotten children is backed up to their parent. A
+         * parent left without children goes back to the open list with the backed up value, and generates the
+         * forgotten children again when it is expanded. Nodes that cannot lead to a better path (superseded
+         * nodes, and nodes without new children) are forgotten without backing up. The search takes longer
+         * and may re-expand states, but only needs the budget to hold a path to the solution
          */
-        PriorityQueue<String> pq = new PriorityQueue<>(Comparator.comparingInt(o -> game.evaluate(o) + o.length()));
-        pq.add(game.getState());
+        String startMoves = game.getPastMoves();
+        int words = game.getPackedSize();
+        long[] buffer = new long[words];
+        Move[] moves = game.getAllMoves();
+        nodes = new NodeStore(game);
+        bestNodes = new StateTable(words);
+        pq.clear();
+        budget = maxNodes == FIT_HEAP ? fitHeap(words) : maxNodes;
+        if (budget != Integer.MAX_VALUE) {
+            childCounts = new int[1024];
+            forgotten = new int[1024];
+        }
 
         int minScore = game.evaluate();
-        int minScoreSteps = game.getSteps();
+        int minScoreSteps = 0;
+        startSearch(verbose, minScore);
+
+        game.packState(buffer, 0);
+        int root = nodes.add(buffer, 0, -1, 0, minScore, 0);
+        bestNodes.put(buffer, 0, root);
+        pq.add(root, 0, minScore);
+        if (childCounts != null) {
+            track(root);
+        }
 
-        int count = 0;
         while (!pq.isEmpty()) {
             // Get the game state with the least evaluation score
-            String nextState = pq.remove();
-            game.loadState(nextState);
+            int node = pq.remove();
+            long[] states = nodes.getStates();
+            int offset = nodes.getOffset(node);
+
+            // Skip the node if a shorter path to the same state has been found since it was added
+            if (bestNodes.get(states, offset) != node) {
+                if (childCounts != null) {
+                    forget(node, INF);
+                }
+                continue;
+            }
+            game.unpackState(states, offset);
+            int steps = nodes.getSteps(node) + 1;
 
             // Return if the final state has been reached
             if (game.isFinalState()) {
-                return game.getPastMoves();
+                // Restore the past moves so that the game ends up in the final state
+                String path = startMoves + nodes.getPath(node);
+                game.loadState(path + game.getState());
+                return finishSearch(path);
+            }
+
+            // Finish with the exact remaining moves once the perimeter has been reached
+            if (perimeter != null && perimeter.lookup(states, offset) != -1) {
+                game.loadState(startMoves + nodes.getPath(node) + game.getState());
+                perimeter.finish(game);
+                return finishSearch(game.getPastMoves());
             }
 
-            // Add the new states generated by the valid moves
-            for (Move move : game.getValidMoves()) {
-                game.move(move);
-                String state = game.getState();
+            // Add the new states generated by the valid moves, except the one returning to the parent
+            int children = 0;
+            int backMove = nodes.getBackMove(node);
+            int valid = game.getValidMoveMask();
+            for (int i = 0; i < moves.length; i++) {
+                if (i == backMove || (valid & 1 << i) == 0) continue;
+                game.move(moves[i]);
+                game.packState(buffer, 0);
+
+                // Skip the state if it has already been reached within as many steps
+                int previous = bestNodes.get(buffer, 0);
+                if (previous != -1 && nodes.getSteps(previous) <= steps) {
+                    game.undo();
+                    continue;
+                }
 
                 // Update the current best score
                 int score = game.evaluate();
-                int steps = game.getSteps();
                 if (score < minScore) {
                     minScore = score;
                     minScoreSteps = steps;
-                    if (verbose >= 1) {
-                        System.out.printf("%d/0: %d iterations\n", score, count);
-                    }
-                    if (verbose == 2) {
-                        System.out.println(game.getState());
-                        System.out.println();
-                    } else if (verbose >= 3) {
-                        System.out.println(game.getFormattedState());
-                        System.out.println();
-                    }
+                    reached(score);
                 }
 
                 // Trim all states that are far from minimum
                 if (score + steps - minScore - minScoreSteps <= threshold) {
-                    pq.add(state);
+                    int child = nodes.add(buffer, 0, node, i, score, steps);
+                    bestNodes.put(buffer, 0, child);
+                    pq.add(child, steps, score);
+                    if (childCounts != null) {
+                        track(child);
+                        childCounts[node]++;
+                    }
+                    children++;
                 }
 
                 game.undo();
             }
-            count++;
+            expanded(children);
+
+            if (childCounts != null) {
+                // The forgotten children have all been generated again
+                forgotten[node] = INF;
+                if (children == 0) {
+                    forget(node, INF);
+                }
+                if (nodes.size() > budget) {
+                    shrink();
+                }
+            }
         }
 
         // Return empty string if no solution found
-        return "";
+        return finishSearch("");
+    }
+
+    /**
+     * Stops the searches as soon as they reach a state near the final state
+     * @param perimeter The states near the final state, or null to search until the final state
+     */
+    public void setPerimeter(PerimeterTable perimeter) {
+        this.perimeter = perimeter;
+    }
+
+    @Override
+    protected void updateSizes() {
+        // Every state in the table but not in the queue has been expanded, except that the queue may still
+        //   hold superseded entries
+        long memory = nodes.memory() + bestNodes.memory() + pq.memory();
+        if (childCounts != null) {
+            memory += (long) (childCounts.length + forgotten.length) * 4;
+        }
+        stats.setSizes(pq.size(), Math.max(0, bestNodes.size() - pq.size()), memory);
+    }
+
+    /**
+     * Estimates the number of nodes that fit half of the memory available
+     * @param words The number of words of a packed state
+     * @return The number of nodes
+     */
+    private static int fitHeap(int words) {
+        Runtime runtime = Runtime.getRuntime();
+        long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        // The node store and the extra arrays grow by doubling, and the table is at most 1/4 full
+        long nodeBytes = 2 * (words * 8 + 4 + 4 + 4 + 4 + 4) + 4 * (words * 8 + 4) + 8;
+        return (int) Math.max(1024, Math.min(Integer.MAX_VALUE - 1, available / 2 / nodeBytes));
+    }
+
+    /**
+     * Starts tracking the children of a new node
+     */
+    private void track(int node) {
+        if (node >= childCounts.length) {
+            int length = Math.max(node + 1, childCounts.length * 2);
+            childCounts = Arrays.copyOf(childCounts, length);
+            forgotten = Arrays.copyOf(forgotten, length);
+        }
+        childCounts[node] = 0;
+        forgotten[node] = INF;
+    }
+
+    /**
+     * Forgets the leaves with the greatest steps + score until the nodes are well below the budget
+     */
+    private void shrink() {
+        int target = budget - budget / 16;
+        while (nodes.size() > target && !pq.isEmpty()) {
+            int f = pq.peekWorstPriority();
+            int node = pq.removeWorst();
+            boolean current = bestNodes.get(nodes.getStates(), nodes.getOffset(node)) == node;
+            forget(node, current ? f : INF);
+        }
+    }
+
+    /**
+     * Removes a leaf that is not in the open list, and backs up its steps + score to its parent. The parent
+     * goes back to the open list if it has no children left, or is forgotten as well if none of its children
+     * needs to be generated again
+     * @param node The index of the leaf
+     * @param f The steps + score of the leaf, or {@link #INF} if it does not need to be generated again
+     */
+    private void forget(int node, int f) {
+        while (true) {
+            long[] states = nodes.getStates();
+            int offset = nodes.getOffset(node);
+            if (bestNodes.get(states, offset) == node) {
+                bestNodes.remove(states, offset);
+            }
+            int parent = nodes.getParent(node);
+            nodes.remove(node);
+            if (parent == -1) {
+                return;
+            }
+            forgotten[parent] = Math.min(forgotten[parent], f);
+            if (--childCounts[parent] > 0) {
+                return;
+            }
+            int steps = nodes.getSteps(parent);
+            if (forgotten[parent] == INF || bestNodes.get(states, nodes.getOffset(parent)) != parent) {
+                node = parent;
+                f = INF;
+                continue;
+            }
+            pq.add(parent, steps, forgotten[parent] - steps);
+            return;
+        }
+    }
+
+    @Override
+    protected void releaseSearch() {
+        nodes = null;
+        bestNodes = null;
+        pq.clear();
+        childCounts = null;
+        forgotten = null;
     }
 }
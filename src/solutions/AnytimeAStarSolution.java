@@ -0,0 +1,240 @@
+package solutions;
+
+import game.Game;
+import game.Move;
+import utils.StateTable;
+
+import java.util.Arrays;
+
+public class AnytimeAStarSolution extends SearchSolution {
+    // The weights are kept as multiples of 1/SCALE so that the priorities stay integers
+    private static final int SCALE = 10;
+    // The number of expanded states between two checks of the deadline
+    private static final int DEADLINE_CHECK = 1024;
+
+    private final int initialWeight;
+    private final int weightStep;
+    private final long timeLimitNanos;
+
+    // The data structures of the current search
+    private NodeStore nodes;
+    private StateTable bestNodes;
+    private final BucketOpenList open = new BucketOpenList();
+    private int[] inconsistent;
+    private int inconsistentSize;
+    private int[] closedIn;  // The last iteration each node was expanded in
+    private double bound;
+
+    /**
+     * @param initialWeight The weight of the estimate in the first search, at least 1
+     * @param weightStep The amount the weight is lowered by after each search
+     * @param timeLimitMillis The time after which no better solution is searched for. The first solution is
+     *                        always searched for until it is found
+     */
+    public AnytimeAStarSolution(double initialWeight, double weightStep, long timeLimitMillis) {
+        assert initialWeight >= 1 && weightStep > 0 : "The weights need to be at least 1 and decreasing";
+        this.initialWeight = (int) Math.round(initialWeight * SCALE);
+        this.weightStep = Math.max(1, (int) Math.round(weightStep * SCALE));
+        this.timeLimitNanos = timeLimitMillis * 1000000;
+    }
+
+    public AnytimeAStarSolution() {
+        this(3, 0.5, 1000);
+    }
+
+    @Override
+    public String solve(Game game, int verbose) {
+        /*
+         * This solution runs a series of weighted A* searches (ARA*), ordering the states by
+         * steps + weight * estimate. A large weight finds a solution quickly, and the solution found with a
+         * weight w is at most w times as long as an optimal one. After each search, the weight is lowered and
+         * the next search continues from the states left by the previous one instead of starting over:
+         *
+         * Within a search each state is expanded at most once. A state reached again with fewer steps after
+         * it has been expanded is kept aside (inconsistent) until the next search. A search stops as soon
+         * as no state in the open list can lead to a shorter solution under the current weight. Then the
+         * open list is re-ordered with the new weight, together with the states kept aside.
+         *
+         * The bound of a solution is its length divided by the least steps + estimate of the states left,
+         * which may be lower than the weight. The searches stop at the deadline, or when the weight reaches 1,
+         * in which case the solution is optimal
+         */
+        String startMoves = game.getPastMoves();
+        int words = game.getPackedSize();
+        long[] buffer = new long[words];
+        Move[] moves = game.getAllMoves();
+        nodes = new NodeStore(game);
+        bestNodes = new StateTable(words);
+        open.clear();
+        inconsistent = new int[1024];
+        inconsistentSize = 0;
+        closedIn = new int[1024];
+        bound = Double.POSITIVE_INFINITY;
+        long deadline = System.nanoTime() + timeLimitNanos;
+
+        int estimate = game.estimate();
+        startSearch(verbose, estimate);
+        game.packState(buffer, 0);
+        int root = nodes.add(buffer, 0, -1, 0, estimate, 0);
+        bestNodes.put(buffer, 0, root);
+        int goal = game.isFinalState() ? root : -1;
+
+        int weight = initialWeight;
+        int reported = Integer.MAX_VALUE;  // The length of the last solution published
+        open.add(root, 0, weight * estimate);
+        for (int iteration = 1; ; iteration++) {
+            boolean complete = true;
+            while (!open.isEmpty() && (goal == -1 || open.peekPriority() < SCALE * nodes.getSteps(goal))) {
+                // Only look for better solutions until the deadline
+                if (goal != -1 && (stats.getExpanded() & (DEADLINE_CHECK - 1)) == 0 && System.nanoTime() > deadline) {
+                    complete = false;
+                    break;
+                }
+                int node = open.remove();
+                long[] states = nodes.getStates();
+                int offset = nodes.getOffset(node);
+                // Skip the node if it has been superseded, or already expanded in this search
+                if (bestNodes.get(states, offset) != node || closedIn[node] == iteration) {
+                    continue;
+                }
+                closedIn[node] = iteration;
+                game.unpackState(states, offset);
+                int steps = nodes.getSteps(node) + 1;
+
+                int children = 0;
+                int backMove = nodes.getBackMove(node);
+                int valid = game.getValidMoveMask();
+                for (int i = 0; i < moves.length; i++) {
+                    if (i == backMove || (valid & 1 << i) == 0) continue;
+                    game.move(moves[i]);
+                    game.packState(buffer, 0);
+
+                    // Skip the state if it has already been reached within as many steps
+                    int previous = bestNodes.get(buffer, 0);
+                    if (previous != -1 && nodes.getSteps(previous) <= steps) {
+                        game.undo();
+                        continue;
+                    }
+                    estimate = game.estimate();
+                    reached(estimate);
+                    int child = nodes.add(buffer, 0, node, i, estimate, steps);
+                    bestNodes.put(buffer, 0, child);
+                    if (child == closedIn.length) {
+                        closedIn = Arrays.copyOf(closedIn, child * 2);
+                    }
+                    if (game.isFinalState()) {
+                        goal = child;
+                    }
+                    if (previous != -1 && closedIn[previous] == iteration) {
+                        addInconsistent(child);
+                    } else {
+                        open.add(child, SCALE * steps, weight * estimate);
+                    }
+                    children++;
+                    game.undo();
+                }
+                expanded(children);
+            }
+
+            // Return empty string if no solution found
+            if (goal == -1) {
+                return finishSearch("");
+            }
+            int length = nodes.getSteps(goal);
+            if (!complete) {
+                // Publish a better solution found before the deadline. It is shorter than the last one, so the
+                //   bound of the last one still holds
+                if (length < reported) {
+                    bound = Math.min(bound, boundOf(drain(), length));
+                    improved(startMoves + nodes.getPath(goal), bound);
+                }
+                break;
+            }
+
+            // Re-order the states left with the next weight, then publish the solution with its bound
+            int[] pending = drain();
+            double newBound = Math.min((double) weight / SCALE, boundOf(pending, length));
+            boolean optimal = weight == SCALE || newBound == 1;
+            weight = Math.max(SCALE, weight - weightStep);
+            for (int node : pending) {
+                open.add(node, SCALE * nodes.getSteps(node), weight * nodes.getEstimate(node));
+            }
+            if (newBound < bound || length < reported) {
+                bound = Math.min(bound, newBound);
+                reported = length;
+                improved(startMoves + nodes.getPath(goal), bound);
+            }
+            if (optimal) {
+                break;
+            }
+        }
+
+        // Restore the past moves so that the game ends up in the final state
+        String path = startMoves + nodes.getPath(goal);
+        game.unpackState(nodes.getStates(), nodes.getOffset(goal));
+        game.loadState(path + game.getState());
+        return finishSearch(path);
+    }
+
+    @Override
+    protected void updateSizes() {
+        stats.setSizes(open.size() + inconsistentSize, bestNodes.size() - open.size() - inconsistentSize,
+                nodes.memory() + bestNodes.memory() + open.memory() + (long) inconsistent.length * 4
+                        + (long) closedIn.length * 4);
+    }
+
+    /**
+     * Get the bound of the last solution found
+     * @return The solution is at most {@code bound} times as long as an optimal solution
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    /**
+     * Removes the states left in the open list and the inconsistent states
+     * @return The nodes that have not been superseded
+     */
+    private int[] drain() {
+        int[] pending = Arrays.copyOf(inconsistent, open.size() + inconsistentSize);
+        int size = inconsistentSize;
+        while (!open.isEmpty()) {
+            int node = open.remove();
+            if (bestNodes.get(nodes.getStates(), nodes.getOffset(node)) == node) {
+                pending[size++] = node;
+            }
+        }
+        inconsistentSize = 0;
+        return Arrays.copyOf(pending, size);
+    }
+
+    /**
+     * Find the bound of a solution from the states left
+     * @param pending The states that may still lead to a shorter solution
+     * @param length The length of the solution
+     * @return The least bound guaranteed by the states left
+     */
+    private double boundOf(int[] pending, int length) {
+        int lowest = Integer.MAX_VALUE;
+        for (int node : pending) {
+            lowest = Math.min(lowest, nodes.getSteps(node) + nodes.getEstimate(node));
+        }
+        return lowest >= length ? 1 : (double) length / lowest;
+    }
+
+    private void addInconsistent(int node) {
+        if (inconsistentSize == inconsistent.length) {
+            inconsistent = Arrays.copyOf(inconsistent, inconsistentSize * 2);
+        }
+        inconsistent[inconsistentSize++] = node;
+    }
+
+    @Override
+    protected void releaseSearch() {
+        nodes = null;
+        bestNodes = null;
+        open.clear();
+        inconsistent = null;
+        closedIn = null;
+    }
+}
@@ -0,0 +1,352 @@
+package solutions;
+
+import game.Game;
+import game.Move;
+import utils.Helper;
+import utils.StateTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+public class BeamSearchSolution extends SearchSolution {
+    public static final int DEFAULT_WIDTH = 1024;
+    public static final int DEFAULT_MAX_DEPTH = 10000;
+    // The score of a candidate that is not kept
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private final int width;
+    private final int maxDepth;
+    private final int numThreads;
+
+    // The data structures of the current search
+    private int words;
+    private Move[] moves;
+    private int[] reverses;
+    private long[] previous;      // The states of the previous level, kept for duplicate detection
+    private int previousSize;
+    private long[] current;       // The states of the level being expanded
+    private int currentSize;
+    private byte[] currentMoves;  // The move leading to each state of the current level, or -1 for the root
+    private long[] candidates;    // The states generated from the current level, one slot per state and move
+    private int[] scores;
+    private long[] keys;
+    private StateTable seen;
+    private List<int[]> parentLevels;
+    private List<byte[]> moveLevels;
+    private Expander[] expanders;
+    private CyclicBarrier barrier;
+
+    /**
+     * @param width The maximum number of states kept at each depth
+     * @param maxDepth The maximum number of moves of a solution
+     * @param numThreads The number of threads expanding each depth
+     */
+    public BeamSearchSolution(int width, int maxDepth, int numThreads) {
+        assert width >= 1 && maxDepth >= 1 && numThreads >= 1 : "The width, depth and threads need to be positive";
+        this.width = width;
+        this.maxDepth = maxDepth;
+        this.numThreads = numThreads;
+    }
+
+    public BeamSearchSolution(int width) {
+        this(width, DEFAULT_MAX_DEPTH, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BeamSearchSolution() {
+        this(DEFAULT_WIDTH);
+    }
+
+    @Override
+    public String solve(Game game, int verbose) {
+        /*
+         * This solution keeps at most {@code width} states at each depth (the beam). All states of a depth are
+         * expanded, split among several threads, and only the candidates with the least evaluation scores are
+         * kept for the next depth. They are chosen by a partial quickselect instead of a full sort.
+         *
+         * Duplicates are only detected among the candidates of a depth and the states of the depth before
+         * the last one (a state can never be reached at 2 adjacent depths, since every move changes the
+         * parity of the position of the empty cell). Each depth only remembers the parent and the move of its
+         * states, so the memory is O(width * depth), and a state of the previous depths may be reached again.
+         * The solution is usually far from optimal, and the search fails if the beam runs out of new states
+         * or the depth limit is reached
+         */
+        words = game.getPackedSize();
+        moves = game.getAllMoves();
+        reverses = game.getReverseMoves();
+        int slots = width * moves.length;
+        previous = new long[width * words];
+        current = new long[width * words];
+        currentMoves = new byte[width];
+        candidates = new long[slots * words];
+        scores = new int[slots];
+        keys = new long[slots];
+        seen = new StateTable(words, slots + width);
+        parentLevels = new ArrayList<>();
+        moveLevels = new ArrayList<>();
+
+        startSearch(verbose, game.evaluate());
+        if (game.isFinalState()) {
+            return finishSearch(game.getPastMoves());
+        }
+        game.packState(current, 0);
+        currentSize = 1;
+        currentMoves[0] = -1;
+        previousSize = 0;
+
+        // The first expander runs on this thread, and the others wait for each depth on the barrier
+        expanders = new Expander[numThreads];
+        Thread[] threads = new Thread[numThreads];
+        barrier = new CyclicBarrier(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            expanders[i] = new Expander(i, game.copy(), barrier);
+            if (i > 0) {
+                threads[i] = new Thread(expanders[i], "beam-worker-" + i);
+                threads[i].start();
+            }
+        }
+
+        String path = "";
+        try {
+            for (int depth = 1; depth <= maxDepth && currentSize > 0; depth++) {
+                await();
+                expanders[0].expand();
+                await();
+
+                // Stop at the first final state
+                int goal = Integer.MAX_VALUE;
+                for (Expander expander : expanders) {
+                    goal = Math.min(goal, expander.goal);
+                }
+                // The other threads wait for the next depth meanwhile, so a cancelled search can release its data
+                countExpanded();
+                if (goal != Integer.MAX_VALUE) {
+                    path = rebuildPath(goal);
+                    break;
+                }
+                selectBeam();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            path = "";
+        } finally {
+            // The other threads are waiting for the next depth, or still expanding if this thread has been
+            // interrupted. Wait for them, so that none of them outlives the data of the search
+            for (Thread thread : threads) {
+                if (thread != null) thread.interrupt();
+            }
+            Helper.joinAll(threads);
+        }
+
+        // Return empty string if no solution found
+        if (path.isEmpty()) {
+            return finishSearch("");
+        }
+
+        // Replay the moves on the game so that it ends up in the final state
+        Helper.replay(game, path);
+        return finishSearch(game.getPastMoves());
+    }
+
+    @Override
+    protected void updateSizes() {
+        // Every state on the path levels has been expanded
+        long closed = 0;
+        for (int[] level : parentLevels) {
+            closed += level.length;
+        }
+        long memory = (long) (previous.length + current.length + candidates.length + keys.length) * 8
+                + (long) scores.length * 4 + currentMoves.length + seen.memory() + closed * 5;
+        stats.setSizes(currentSize, closed, memory);
+    }
+
+    /**
+     * Waits until all threads reach the barrier
+     */
+    private void await() throws InterruptedException {
+        try {
+            barrier.await();
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("A beam worker failed", e);
+        }
+    }
+
+    /**
+     * Counts the expanded states and their valid candidates
+     */
+    private void countExpanded() {
+        for (int j = 0; j < currentSize; j++) {
+            int children = 0;
+            for (int i = 0; i < moves.length; i++) {
+                if (scores[j * moves.length + i] != NONE) children++;
+            }
+            expanded(children);
+        }
+    }
+
+    /**
+     * Removes the duplicate candidates, then keeps the best of them as the next level
+     */
+    private void selectBeam() {
+        seen.clear();
+        for (int j = 0; j < previousSize; j++) {
+            seen.put(previous, j * words, 0);
+        }
+        int count = 0;
+        int minScore = NONE;
+        for (int slot = 0; slot < currentSize * moves.length; slot++) {
+            if (scores[slot] == NONE || seen.put(candidates, slot * words, 0) != -1) continue;
+            // Ties are broken by the slot, which keeps the search deterministic
+            keys[count++] = ((long) scores[slot] << 32) | slot;
+            minScore = Math.min(minScore, scores[slot]);
+        }
+        int size = Math.min(width, count);
+        if (count > size) {
+            select(keys, count, size);
+        }
+        if (size > 0) {
+            reached(minScore);
+        }
+
+        // The current level becomes the previous one, and its array receives the next level
+        long[] temp = previous;
+        previous = current;
+        previousSize = currentSize;
+        current = temp;
+        int[] parents = new int[size];
+        byte[] levelMoves = new byte[size];
+        for (int j = 0; j < size; j++) {
+            int slot = (int) keys[j];
+            parents[j] = slot / moves.length;
+            levelMoves[j] = (byte) (slot % moves.length);
+            System.arraycopy(candidates, slot * words, current, j * words, words);
+        }
+        System.arraycopy(levelMoves, 0, currentMoves, 0, size);
+        currentSize = size;
+        parentLevels.add(parents);
+        moveLevels.add(levelMoves);
+    }
+
+    /**
+     * Rearranges the keys so that the first k of them are the least ones, in no particular order
+     * @param keys The keys
+     * @param n The number of keys
+     * @param k The number of least keys, less than n
+     */
+    private static void select(long[] keys, int n, int k) {
+        int low = 0, high = n - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long pivot = Math.max(Math.min(keys[low], keys[middle]),
+                    Math.min(Math.max(keys[low], keys[middle]), keys[high]));
+            int i = low, j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    long temp = keys[i];
+                    keys[i++] = keys[j];
+                    keys[j--] = temp;
+                }
+            }
+            // Now the keys in [low, j] are at most the pivot, and the keys in [i, high] are at least the pivot
+            if (k - 1 <= j) {
+                high = j;
+            } else if (k - 1 >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Follows the parents of a candidate back to the root
+     * @param slot The slot of the final candidate
+     * @return The moves from the root to the candidate
+     */
+    private String rebuildPath(int slot) {
+        StringBuilder path = new StringBuilder();
+        path.append(moves[slot % moves.length].toChar());
+        int index = slot / moves.length;
+        for (int level = parentLevels.size() - 1; level >= 0; level--) {
+            path.append(moves[moveLevels.get(level)[index]].toChar());
+            index = parentLevels.get(level)[index];
+        }
+        return path.reverse().toString();
+    }
+
+    @Override
+    protected void releaseSearch() {
+        previous = current = candidates = keys = null;
+        currentMoves = null;
+        scores = null;
+        seen = null;
+        parentLevels = null;
+        moveLevels = null;
+        expanders = null;
+        barrier = null;
+    }
+
+    /**
+     * Expands a share of the current level with its own copy of the game
+     */
+    private class Expander implements Runnable {
+        private final int id;
+        private final Game game;
+        private final CyclicBarrier barrier;
+        // The least slot of a final state found in the last expansion
+        private int goal;
+
+        Expander(int id, Game game, CyclicBarrier barrier) {
+            this.id = id;
+            this.game = game;
+            this.barrier = barrier;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    barrier.await();
+                    expand();
+                    barrier.await();
+                }
+            } catch (InterruptedException | BrokenBarrierException e) {
+                // The search has finished, been cancelled, or another thread has failed
+            } catch (RuntimeException | Error e) {
+                barrier.reset();
+                throw e;
+            }
+        }
+
+        /**
+         * Fills the candidate slots of the states in this expander's share of the current level
+         */
+        void expand() {
+            goal = Integer.MAX_VALUE;
+            int from = (int) ((long) currentSize * id / numThreads);
+            int to = (int) ((long) currentSize * (id + 1) / numThreads);
+            for (int j = from; j < to; j++) {
+                game.unpackState(current, j * words);
+                int backMove = currentMoves[j] == -1 ? -1 : reverses[currentMoves[j]];
+                int valid = game.getValidMoveMask();
+                for (int i = 0; i < moves.length; i++) {
+                    int slot = j * moves.length + i;
+                    if (i == backMove || (valid & 1 << i) == 0) {
+                        scores[slot] = NONE;
+                        continue;
+                    }
+                    game.move(moves[i]);
+                    game.packState(candidates, slot * words);
+                    scores[slot] = game.evaluate();
+                    if (goal == Integer.MAX_VALUE && game.isFinalState()) {
+                        goal = slot;
+                    }
+                    game.undo();
+                }
+            }
+        }
+    }
+}
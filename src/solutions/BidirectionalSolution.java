@@ -0,0 +1,155 @@
+package solutions;
+
+import game.Game;
+import game.Move;
+import utils.Helper;
+import utils.StateTable;
+
+public class BidirectionalSolution extends SearchSolution {
+    // The two sides of the current search
+    private Side forward;
+    private Side backward;
+
+    @Override
+    public String solve(Game game, int verbose) {
+        /*
+         * This solution runs two breadth-first searches at the same time, one forward from the starting
+         * state and one backward from the final state (all moves can be reversed). Each step expands the
+         * whole current layer of the side with the smaller layer, and checks every new state against the
+         * states reached by the other side. A shortest path of length d is found after each side has only
+         * explored about d/2 layers.
+         *
+         * Since all states of the earlier layers have been checked, the shortest path through the current
+         * layer is the optimal solution, so the search stops after the layer where the two sides first meet.
+         */
+        String start = game.getState();
+        int words = game.getPackedSize();
+        long[] buffer = new long[words];
+
+        Move[] moves = game.getAllMoves();
+        forward = new Side(game);
+        backward = new Side(game);
+        startSearch(verbose, game.estimate());
+        game.packState(buffer, 0);
+        forward.add(buffer, -1, 0, 0);
+        game.packFinalState(buffer, 0);
+        backward.add(buffer, -1, 0, 0);
+
+        // Check if the starting state is already the final state
+        int forwardMeet = forward.seen.get(buffer, 0);
+        int backwardMeet = 0;
+        int bestSteps = forwardMeet == -1 ? Integer.MAX_VALUE : 0;
+
+        while (bestSteps == Integer.MAX_VALUE && !forward.isEmpty() && !backward.isEmpty()) {
+            boolean isForward = forward.layerSize() <= backward.layerSize();
+            Side side = isForward ? forward : backward;
+            Side other = isForward ? backward : forward;
+
+            for (int i = side.layerStart; i < side.layerEnd; i++) {
+                game.unpackState(side.nodes.getStates(), side.nodes.getOffset(i));
+                int backMove = side.nodes.getBackMove(i);
+                int children = 0;
+
+                int valid = game.getValidMoveMask();
+                for (int m = 0; m < moves.length; m++) {
+                    if (m == backMove || (valid & 1 << m) == 0) continue;
+                    game.move(moves[m]);
+                    game.packState(buffer, 0);
+                    game.undo();
+                    if (side.seen.get(buffer, 0) != -1) continue;
+
+                    int node = side.add(buffer, i, m, side.depth + 1);
+                    children++;
+                    int otherNode = other.seen.get(buffer, 0);
+                    if (otherNode != -1 && side.depth + 1 + other.nodes.getSteps(otherNode) < bestSteps) {
+                        bestSteps = side.depth + 1 + other.nodes.getSteps(otherNode);
+                        forwardMeet = isForward ? node : otherNode;
+                        backwardMeet = isForward ? otherNode : node;
+                    }
+                }
+                expanded(children);
+            }
+            side.nextLayer();
+        }
+
+        // Return empty string if no solution found
+        if (bestSteps == Integer.MAX_VALUE) {
+            return finishSearch("");
+        }
+
+        // The forward half leads to the meeting state, then the backward half is walked back to the final state
+        StringBuilder path = new StringBuilder(forward.nodes.getPath(forwardMeet));
+        for (int i = backwardMeet; backward.nodes.getParent(i) != -1; i = backward.nodes.getParent(i)) {
+            path.append(moves[backward.nodes.getBackMove(i)].toChar());
+        }
+
+        // Replay the moves on the game so that it ends up in the final state
+        game.loadState(start);
+        Helper.replay(game, path.toString());
+        return finishSearch(game.getPastMoves());
+    }
+
+    @Override
+    protected void updateSizes() {
+        // The open states are the unexpanded part of the current layer and the next layer
+        long open = 0;
+        long memory = 0;
+        for (Side side : new Side[] {forward, backward}) {
+            open += side.nodes.size() - side.layerStart;
+            memory += side.nodes.memory() + side.seen.memory();
+        }
+        stats.setSizes(open, forward.nodes.size() + backward.nodes.size() - open, memory);
+    }
+
+    @Override
+    protected void releaseSearch() {
+        forward = null;
+        backward = null;
+    }
+
+    /**
+     * The states reached by one direction of the search, with the range of nodes in the current layer
+     */
+    private static class Side {
+        private final NodeStore nodes;
+        private final StateTable seen;
+        private int layerStart;
+        private int layerEnd;
+        private int depth;
+
+        Side(Game game) {
+            nodes = new NodeStore(game);
+            seen = new StateTable(game.getPackedSize());
+            layerStart = 0;
+            layerEnd = 0;
+            depth = 0;
+        }
+
+        int add(long[] state, int parent, int move, int steps) {
+            int node = nodes.add(state, 0, parent, move, 0, steps);
+            seen.put(state, 0, node);
+            // The starting state forms the first layer
+            if (parent == -1) {
+                layerEnd = node + 1;
+            }
+            return node;
+        }
+
+        /**
+         * Moves on to the nodes added while expanding the current layer
+         */
+        void nextLayer() {
+            layerStart = layerEnd;
+            layerEnd = nodes.size();
+            depth++;
+        }
+
+        int layerSize() {
+            return layerEnd - layerStart;
+        }
+
+        boolean isEmpty() {
+            return layerStart == layerEnd;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package solutions;
+
+import java.util.Arrays;
+
+/**
+ * An open list of node indices for small non-negative integer priorities. The nodes are kept in buckets
+ * indexed by f (steps + estimate), and each bucket is divided by the estimate (h), so both adding and
+ * removing a node take constant time. Among the nodes with the least f, those with the least estimate are
+ * removed first, the most recently added one first (LIFO).
+ *
+ * The minimum is tracked by a pointer that only moves back when a smaller priority is added, so the cost
+ * of scanning for the next non-empty bucket is bounded by the range of the priorities. The maximum is
+ * tracked the same way, so that the worst nodes can be dropped when memory runs low. The storage is kept
+ * by {@link #clear()}, so an open list can be reused between searches
+ */
+class BucketOpenList {
+    // The stacks of nodes of bucket f are stacks[f][h], with sizes[f][h] nodes
+    private int[][][] stacks;
+    private int[][] sizes;
+    // The number of nodes with each f, and a lower bound of their estimates
+    private int[] counts;
+    private int[] minEstimates;
+    private int size;
+    // Bounds of the f of the nodes
+    private int minF;
+    private int maxF;
+
+    BucketOpenList() {
+        stacks = new int[64][][];
+        sizes = new int[64][];
+        counts = new int[64];
+        minEstimates = new int[64];
+        Arrays.fill(minEstimates, Integer.MAX_VALUE);
+        size = 0;
+        minF = Integer.MAX_VALUE;
+        maxF = -1;
+    }
+
+    /**
+     * Adds a node to the open list
+     * @param node The index of the node
+     * @param steps The number of steps taken to reach the node (g)
+     * @param estimate The evaluation score of the node (h)
+     */
+    void add(int node, int steps, int estimate) {
+        assert steps >= 0 && estimate >= 0 : "Priorities need to be non-negative";
+        int f = steps + estimate;
+        if (f >= counts.length) {
+            int length = Math.max(f + 1, counts.length * 2);
+            stacks = Arrays.copyOf(stacks, length);
+            sizes = Arrays.copyOf(sizes, length);
+            counts = Arrays.copyOf(counts, length);
+            int oldLength = minEstimates.length;
+            minEstimates = Arrays.copyOf(minEstimates, length);
+            Arrays.fill(minEstimates, oldLength, length, Integer.MAX_VALUE);
+        }
+        if (stacks[f] == null || estimate >= stacks[f].length) {
+            int length = Math.max(estimate + 1, stacks[f] == null ? 8 : stacks[f].length * 2);
+            stacks[f] = stacks[f] == null ? new int[length][] : Arrays.copyOf(stacks[f], length);
+            sizes[f] = sizes[f] == null ? new int[length] : Arrays.copyOf(sizes[f], length);
+        }
+
+        int[] stack = stacks[f][estimate];
+        int top = sizes[f][estimate];
+        if (stack == null) {
+            stack = stacks[f][estimate] = new int[16];
+        } else if (top == stack.length) {
+            stack = stacks[f][estimate] = Arrays.copyOf(stack, top * 2);
+        }
+        stack[top] = node;
+        sizes[f][estimate] = top + 1;
+        counts[f]++;
+        minEstimates[f] = Math.min(minEstimates[f], estimate);
+        size++;
+        minF = Math.min(minF, f);
+        maxF = Math.max(maxF, f);
+    }
+
+    /**
+     * Removes a node with the least f, and among those the least estimate
+     * @return The index of the node
+     */
+    int remove() {
+        assert size > 0 : "The open list is empty";
+        while (counts[minF] == 0) {
+            minF++;
+        }
+        int[] bucket = sizes[minF];
+        int h = minEstimates[minF];
+        while (bucket[h] == 0) {
+            h++;
+        }
+        int node = stacks[minF][h][--bucket[h]];
+        minEstimates[minF] = --counts[minF] == 0 ? Integer.MAX_VALUE : h;
+        size--;
+        if (size == 0) {
+            minF = Integer.MAX_VALUE;
+            maxF = -1;
+        }
+        return node;
+    }
+
+    /**
+     * Get the least priority without removing the node
+     * @return The least steps + estimate
+     */
+    int peekPriority() {
+        assert size > 0 : "The open list is empty";
+        while (counts[minF] == 0) {
+            minF++;
+        }
+        return minF;
+    }
+
+    /**
+     * Removes a node with the greatest f, and among those the greatest estimate
+     * @return The index of the node
+     */
+    int removeWorst() {
+        int f = peekWorstPriority();
+        int[] bucket = sizes[f];
+        int h = bucket.length - 1;
+        while (bucket[h] == 0) {
+            h--;
+        }
+        int node = stacks[f][h][--bucket[h]];
+        if (--counts[f] == 0) {
+            minEstimates[f] = Integer.MAX_VALUE;
+        }
+        size--;
+        if (size == 0) {
+            minF = Integer.MAX_VALUE;
+            maxF = -1;
+        }
+        return node;
+    }
+
+    /**
+     * Get the greatest priority without removing the node
+     * @return The greatest steps + estimate
+     */
+    int peekWorstPriority() {
+        assert size > 0 : "The open list is empty";
+        while (counts[maxF] == 0) {
+            maxF--;
+        }
+        return maxF;
+    }
+
+    /**
+     * Removes all nodes while keeping the allocated storage
+     */
+    void clear() {
+        for (int f = 0; f <= maxF; f++) {
+            if (counts[f] != 0) {
+                Arrays.fill(sizes[f], 0);
+                counts[f] = 0;
+                minEstimates[f] = Integer.MAX_VALUE;
+            }
+        }
+        size = 0;
+        minF = Integer.MAX_VALUE;
+        maxF = -1;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the size of the arrays
+     * @return The size in bytes
+     */
+    long memory() {
+        long memory = (long) counts.length * 8;
+        for (int f = 0; f < counts.length; f++) {
+            if (stacks[f] == null) continue;
+            memory += (long) sizes[f].length * 4;
+            for (int[] stack : stacks[f]) {
+                if (stack != null) {
+                    memory += (long) stack.length * 4;
+                }
+            }
+        }
+        return memory;
+    }
+}
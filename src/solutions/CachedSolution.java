@@ -0,0 +1,72 @@
+package solutions;
+
+import game.Game;
+import utils.Helper;
+
+public class CachedSolution extends SearchSolution {
+    private final Solution solution;
+    private final SolutionCache cache;
+    private boolean hit;
+
+    /**
+     * @param solution The solution used for the boards not in the cache
+     * @param cache The cache, which may be shared by several solutions
+     */
+    public CachedSolution(Solution solution, SolutionCache cache) {
+        this.solution = solution;
+        this.cache = cache;
+    }
+
+    @Override
+    public String solve(Game game, int verbose) {
+        /*
+         * This solution looks up the board in the cache, and only searches if it is not there. The moves of
+         * a search are cached for the starting board, and also for the first boards along them in memory,
+         * since the rest of the moves solve those boards as well. At most half of the cache is taken by
+         * these boards, and the starting board is added last, so it is never the first to be evicted
+         */
+        String key = SolutionCache.key(game);
+        String moves = cache.get(key);
+        hit = moves != null;
+        if (hit) {
+            startSearch(verbose, game.estimate());
+            Helper.replay(game, moves);
+            return finishSearch(game.getPastMoves());
+        }
+
+        String startMoves = game.getPastMoves();
+        Game start = game.copy();
+        String result = solution.solve(game, verbose);
+        // Do not cache failed searches, which may succeed with another solution
+        if (!result.isEmpty() && game.isFinalState()) {
+            moves = result.substring(startMoves.length());
+            int numSuffixes = Math.min(moves.length() - 1, cache.getMaxEntries() / 2);
+            for (int i = 1; i <= numSuffixes; i++) {
+                start.move(Helper.findMove(start, moves.charAt(i - 1)));
+                cache.putSuffix(SolutionCache.key(start), moves, i);
+            }
+            cache.put(key, moves, true);
+        }
+        return result;
+    }
+
+    @Override
+    public void setListener(SearchListener listener, long sampleInterval) {
+        super.setListener(listener, sampleInterval);
+        solution.setListener(listener, sampleInterval);
+    }
+
+    /**
+     * Get the statistics of the current or the last search
+     * @return The statistics of the underlying solution, unless the board was found in the cache
+     */
+    @Override
+    public SearchStats getStats() {
+        return hit ? stats : solution.getStats();
+    }
+
+    @Override
+    protected void updateSizes() {
+        stats.setSizes(0, 0, 0);
+    }
+}
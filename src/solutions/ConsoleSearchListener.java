@@ -0,0 +1,21 @@
+package solutions;
+
+/**
+ * Prints the statistics to the console. Used by the solutions when {@code verbose >= 1}
+ */
+public class ConsoleSearchListener implements SearchListener {
+    @Override
+    public void onSample(SearchStats stats) {
+        System.out.println(stats);
+    }
+
+    @Override
+    public void onSolution(SearchStats stats, String solution, double bound) {
+        System.out.printf("Solution of %d moves (at most %.2f times optimal): %s\n", solution.length(), bound, stats);
+    }
+
+    @Override
+    public void onFinish(SearchStats stats, String solution) {
+        System.out.printf("Finished in %.3f s: %s\n", stats.getElapsedNanos() / 1e9, stats);
+    }
+}
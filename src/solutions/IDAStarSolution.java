@@ -0,0 +1,114 @@
+package solutions;
+
+import game.Game;
+import game.Move;
+
+public class IDAStarSolution extends SearchSolution {
+    private static final int FOUND = -1;
+
+    private Game game;
+    private Move[] moves;
+    private int[] reverses;
+    private int depth;
+    private PerimeterTable perimeter;
+    private long[] buffer;
+
+    @Override
+    public String solve(Game game, int verbose) {
+        /*
+         * This solution runs a series of depth-first searches directly on the game, executing and undoing
+         * the moves in place. Each search prunes the states whose steps + estimate exceed a bound, and the
+         * next bound is the least value that has been pruned. Since the estimate never exceeds the actual
+         * number of steps, the first final state reached is an optimal solution. Only the current path is
+         * kept in memory.
+         *
+         * With a perimeter table, the states in the table use their exact distance as the estimate, and the
+         * search finishes with the exact remaining moves as soon as one of them is within the bound. The
+         * states outside need more moves than the depth of the table, which raises their estimate
+         */
+        this.game = game;
+        this.moves = game.getAllMoves();
+        this.reverses = game.getReverseMoves();
+        this.depth = 0;
+        this.buffer = new long[game.getPackedSize()];
+
+        int bound = game.estimate();
+        startSearch(verbose, bound);
+        while (true) {
+            int next = search(0, bound, -1);
+            if (next == FOUND) {
+                return finishSearch(game.getPastMoves());
+            }
+            // Return empty string if there are no more states to explore
+            if (next == Integer.MAX_VALUE) {
+                return finishSearch("");
+            }
+            bound = next;
+        }
+    }
+
+    /**
+     * Searches from the current state of the game. The game is left in the final state if it is found,
+     * otherwise it is restored to the current state
+     * @param steps The number of steps taken since the start of the search
+     * @param bound The maximum steps + estimate allowed
+     * @param lastMove The index of the last move executed, or -1 at the start of the search
+     * @return {@code FOUND} if the final state is found, otherwise the least steps + estimate exceeding the bound
+     */
+    private int search(int steps, int bound, int lastMove) {
+        int estimate = game.estimate();
+        int distance = -1;
+        if (perimeter != null) {
+            game.packState(buffer, 0);
+            distance = perimeter.lookup(buffer, 0);
+            estimate = distance != -1 ? distance : Math.max(estimate, perimeter.getDepth() + 1);
+        }
+        reached(estimate);
+        int score = steps + estimate;
+        if (score > bound) {
+            return score;
+        }
+        if (game.isFinalState()) {
+            return FOUND;
+        }
+        if (distance != -1) {
+            perimeter.finish(game);
+            return FOUND;
+        }
+        depth = steps;
+
+        int minScore = Integer.MAX_VALUE;
+        int children = 0;
+        // Skip the move that cancels the last move
+        int valid = game.getValidMoveMask();
+        int backMove = lastMove == -1 ? -1 : reverses[lastMove];
+        for (int i = 0; i < moves.length; i++) {
+            if (i == backMove || (valid & 1 << i) == 0) continue;
+            game.move(moves[i]);
+            children++;
+
+            int result = search(steps + 1, bound, i);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            minScore = Math.min(minScore, result);
+            game.undo();
+        }
+        expanded(children);
+        return minScore;
+    }
+
+    /**
+     * Finishes the searches with the exact remaining moves once they reach a state near the final state
+     * @param perimeter The states near the final state, or null to search until the final state
+     */
+    public void setPerimeter(PerimeterTable perimeter) {
+        this.perimeter = perimeter;
+    }
+
+    @Override
+    protected void updateSizes() {
+        // Only the current path is kept
+        stats.setSizes(depth, 0, 0);
+    }
+}
@@ -0,0 +1,179 @@
+package solutions;
+
+import game.Game;
+import game.Move;
+
+import java.util.Arrays;
+
+/**
+ * Stores the search nodes in flat primitive arrays. Each node is referred to by its index, and keeps its
+ * packed state, the index of its parent, the move that leads from the parent to itself, and its steps (g)
+ * and evaluation score (h), which are computed only once when the node is created.
+ *
+ * The parent and the move share a single int: the parent index in the upper 30 bits and the index of the
+ * move in {@code Game.getAllMoves()} in the lower 2 bits.
+ *
+ * The indices of removed nodes are reused by later nodes, so the indices are only sequential if no node is
+ * ever removed
+ */
+class NodeStore {
+    private static final int MOVE_BITS = 2;
+    private static final int MOVE_MASK = (1 << MOVE_BITS) - 1;
+
+    private final int words;
+    private final Move[] moves;
+    private final int[] reverses;
+    private long[] states;
+    private int[] links;
+    private int[] estimates;
+    private int[] steps;
+    private int size;  // The number of indices used, including the removed nodes
+    // The removed nodes are chained through their steps
+    private int freeHead;
+    private int freeCount;
+
+    /**
+     * @param game The game of the states, which gives the size of the packed states and the moves
+     */
+    NodeStore(Game game) {
+        words = game.getPackedSize();
+        moves = game.getAllMoves();
+        reverses = game.getReverseMoves();
+        assert moves.length <= 1 << MOVE_BITS : "Too many moves";
+        int capacity = 1024;
+        states = new long[capacity * words];
+        links = new int[capacity];
+        estimates = new int[capacity];
+        steps = new int[capacity];
+        size = 0;
+        freeHead = -1;
+        freeCount = 0;
+    }
+
+    /**
+     * Adds a new node
+     * @param state The array containing the packed state
+     * @param offset The index of the first word of the state
+     * @param parent The index of the parent node, or -1 for the root
+     * @param move The index of the move that leads from the parent to the new node (ignored for the root)
+     * @param estimate The evaluation score of the new node
+     * @param step The number of steps taken from the root to the new node
+     * @return The index of the new node
+     */
+    int add(long[] state, int offset, int parent, int move, int estimate, int step) {
+        int node;
+        if (freeHead != -1) {
+            node = freeHead;
+            freeHead = steps[node];
+            freeCount--;
+        } else {
+            node = grow();
+        }
+        System.arraycopy(state, offset, states, node * words, words);
+        links[node] = parent == -1 ? -1 : (parent << MOVE_BITS) | move;
+        estimates[node] = estimate;
+        steps[node] = step;
+        return node;
+    }
+
+    /**
+     * Removes a node so that its index can be reused. The children of the node keep referring to it as their
+     * parent, so a node should only be removed after all its children
+     * @param node The index of the node
+     */
+    void remove(int node) {
+        steps[node] = freeHead;
+        freeHead = node;
+        freeCount++;
+    }
+
+    /**
+     * Takes a new index at the end of the arrays
+     */
+    private int grow() {
+        if (size == links.length) {
+            if (size > Integer.MAX_VALUE >> (MOVE_BITS + 1)) {
+                throw new OutOfMemoryError("Too many nodes");
+            }
+            int capacity = size * 2;
+            states = Arrays.copyOf(states, capacity * words);
+            links = Arrays.copyOf(links, capacity);
+            estimates = Arrays.copyOf(estimates, capacity);
+            steps = Arrays.copyOf(steps, capacity);
+        }
+        return size++;
+    }
+
+    /**
+     * Rebuilds the moves from the root to the given node
+     * @param node The index of the node
+     * @return A String of moves (represented in char) in order
+     */
+    String getPath(int node) {
+        StringBuilder path = new StringBuilder();
+        for (int i = node; links[i] != -1; i = getParent(i)) {
+            path.append(moves[getMove(i)].toChar());
+        }
+        return path.reverse().toString();
+    }
+
+    // Getters & setters
+    long[] getStates() {
+        return states;
+    }
+
+    int getOffset(int node) {
+        return node * words;
+    }
+
+    int getParent(int node) {
+        // The root has all bits set, so the shift keeps -1
+        return links[node] >> MOVE_BITS;
+    }
+
+    /**
+     * Get the move that leads from the parent to a node
+     * @param node The index of the node, which is not the root
+     * @return The index of the move
+     */
+    int getMove(int node) {
+        return links[node] & MOVE_MASK;
+    }
+
+    /**
+     * Get the move that leads back from a node to its parent, which is skipped when expanding the node
+     * @param node The index of the node
+     * @return The index of the move, or -1 for the root
+     */
+    int getBackMove(int node) {
+        return links[node] == -1 ? -1 : reverses[getMove(node)];
+    }
+
+    Move[] getMoves() {
+        return moves;
+    }
+
+    int getEstimate(int node) {
+        return estimates[node];
+    }
+
+    int getSteps(int node) {
+        return steps[node];
+    }
+
+    /**
+     * Get the number of nodes
+     * @return The number of nodes, excluding the removed ones
+     */
+    int size() {
+        return size - freeCount;
+    }
+
+    /**
+     * Get the size of the arrays
+     * @return The size in bytes
+     */
+    long memory() {
+        return (long) links.length * (words * 8 + 4 + 4 + 4);
+    }
+}
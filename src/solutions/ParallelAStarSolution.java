@@ -0,0 +1,393 @@
+package solutions;
+
+import game.Game;
+import game.Move;
+import utils.Helper;
+import utils.StateTable;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ParallelAStarSolution extends SearchSolution {
+    private static final int BATCH_SIZE = 64;
+    private static final long SAMPLE_MILLIS = 100;
+
+    private final int numThreads;
+    // The current search, or null between searches
+    private Search search;
+
+    public ParallelAStarSolution(int numThreads) {
+        assert numThreads >= 1 : "At least 1 thread required";
+        this.numThreads = numThreads;
+    }
+
+    public ParallelAStarSolution() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public String solve(Game game, int verbose) {
+        /*
+         * This solution distributes the states among several workers by their hash (HDA*). Each worker runs
+         * A* on the states it owns with its own copy of the game, and sends the new states it generates to
+         * their owners in batches through lock-free queues. Since a state always goes to the same worker,
+         * duplicates are detected locally without locking.
+         *
+         * A final state only bounds the solution, since other workers may still hold better states. The
+         * workers stop when all of them are idle (nothing left with steps + estimate below the best
+         * solution) and no batch is in flight. This is tracked by a single counter of busy workers plus
+         * batches sent but not yet processed: a batch is counted before it is sent, and an idle worker
+         * becomes busy before the batch it received is uncounted, so the counter never hits 0 early.
+         *
+         * The workers only share the data of their own search, and are always joined before the search
+         * finishes, even when it is interrupted.
+         */
+        Search search = new Search(numThreads, game.getPackedSize());
+        this.search = search;
+        Worker[] workers = search.workers;
+
+        startSearch(verbose, game.estimate());
+        for (int i = 0; i < numThreads; i++) {
+            workers[i] = new Worker(search, i, game.copy());
+            workers[i].stats.start(game.estimate());
+            workers[i].publish();
+        }
+
+        // Give the starting state to its owner
+        long[] root = new long[search.words];
+        game.packState(root, 0);
+        workers[search.owner(root, 0)].insert(root, 0, -1, -1, 0, 0, game.estimate());
+
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(workers[i], "astar-worker-" + i);
+            threads[i].start();
+        }
+        try {
+            // The counters of the workers are sampled while waiting
+            for (Thread thread : threads) {
+                thread.join(SAMPLE_MILLIS);
+                while (thread.isAlive()) {
+                    sumStats();
+                    sample();
+                    thread.join(SAMPLE_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            // The workers may still be expanding or sending a batch, so wait until they have stopped
+            Helper.joinAll(threads);
+            sumStats();
+            return finishSearch("");
+        }
+        sumStats();
+
+        // Return empty string if no solution found
+        if (search.bestWorker == -1) {
+            return finishSearch("");
+        }
+
+        // Rebuild the moves by following the parents across the workers
+        StringBuilder path = new StringBuilder();
+        for (int w = search.bestWorker, node = search.bestNode; workers[w].nodes.getParent(node) != -1; ) {
+            NodeStore nodes = workers[w].nodes;
+            path.append(nodes.getMoves()[nodes.getMove(node)].toChar());
+            int parent = workers[w].nodes.getParent(node);
+            w = workers[w].parentWorkers[node];
+            node = parent;
+        }
+
+        // Replay the moves on the game so that it ends up in the final state
+        Helper.replay(game, path.reverse().toString());
+        return finishSearch(game.getPastMoves());
+    }
+
+    @Override
+    protected void updateSizes() {
+        // The sizes last published by the workers, which lag behind by at most a batch of nodes
+        long open = 0;
+        long closed = 0;
+        long memory = 0;
+        for (Worker worker : search.workers) {
+            synchronized (worker.published) {
+                open += worker.published.getOpenSize();
+                closed += worker.published.getClosedSize();
+                memory += worker.published.getMemory();
+            }
+        }
+        stats.setSizes(open, closed, memory);
+    }
+
+    private void sumStats() {
+        SearchStats[] parts = new SearchStats[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            parts[i] = new SearchStats();
+            synchronized (search.workers[i].published) {
+                parts[i].copy(search.workers[i].published);
+            }
+        }
+        stats.sum(parts);
+    }
+
+    @Override
+    protected void releaseSearch() {
+        search = null;
+    }
+
+    /**
+     * The data shared by the workers of one search
+     */
+    private static class Search {
+        private final int numThreads;
+        private final int words;
+        private final Worker[] workers;
+        private final AtomicLong pendingWork;
+        private final AtomicInteger bestSteps;
+        // Guarded by the search
+        private int bestWorker;
+        private int bestNode;
+
+        Search(int numThreads, int words) {
+            this.numThreads = numThreads;
+            this.words = words;
+            workers = new Worker[numThreads];
+            pendingWork = new AtomicLong(numThreads);
+            bestSteps = new AtomicInteger(Integer.MAX_VALUE);
+            bestWorker = -1;
+            bestNode = -1;
+        }
+
+        /**
+         * Find the worker owning a state. The high bits of the hash are used, since the hash tables of the
+         * workers use the low bits
+         */
+        private int owner(long[] state, int offset) {
+            long hash = StateTable.hash(state, offset, words) & 0xFFFFFFFFL;
+            return (int) ((hash * numThreads) >>> 32);
+        }
+
+        private synchronized void recordSolution(int worker, int node, int steps) {
+            if (steps < bestSteps.get()) {
+                bestWorker = worker;
+                bestNode = node;
+                bestSteps.set(steps);
+            }
+        }
+    }
+
+    private static class Worker implements Runnable {
+        private final Search search;
+        private final int words;
+        /*
+         * Each entry of a batch: the packed state, then the parent (worker << 32 | node), then
+         * (steps << 32 | estimate << 16 | move)
+         */
+        private final int entrySize;
+
+        private final int id;
+        private final Game game;
+        private final Move[] moves;
+        private final NodeStore nodes;
+        private final StateTable bestNodes;
+        private final BucketOpenList open;
+        private final Queue<long[]> inbox;
+        private final long[][] outboxes;
+        private final int[] outboxSizes;
+        private final long[] buffer;
+        private int[] parentWorkers;
+        private final SearchStats stats;
+        // A copy of the statistics and the sizes for the sampling thread, guarded by its own lock
+        private final SearchStats published;
+        private boolean idle;
+
+        Worker(Search search, int id, Game game) {
+            this.search = search;
+            words = search.words;
+            entrySize = words + 2;
+            this.id = id;
+            this.game = game;
+            moves = game.getAllMoves();
+            nodes = new NodeStore(game);
+            bestNodes = new StateTable(words);
+            open = new BucketOpenList();
+            inbox = new ConcurrentLinkedQueue<>();
+            outboxes = new long[search.numThreads][BATCH_SIZE * entrySize];
+            outboxSizes = new int[search.numThreads];
+            buffer = new long[words];
+            parentWorkers = new int[1024];
+            stats = new SearchStats();
+            published = new SearchStats();
+            idle = false;
+        }
+
+        @Override
+        public void run() {
+            try {
+                loop();
+            } finally {
+                publish();
+            }
+        }
+
+        private void loop() {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Process the batches sent by other workers
+                long[] batch;
+                while ((batch = inbox.poll()) != null) {
+                    if (idle) {
+                        idle = false;
+                        search.pendingWork.incrementAndGet();
+                    }
+                    receive(batch);
+                    search.pendingWork.decrementAndGet();
+                }
+
+                boolean progress = expand();
+                publish();
+                if (progress) {
+                    continue;
+                }
+
+                // Nothing left to expand: send everything before becoming idle
+                flushAll();
+                if (!idle) {
+                    idle = true;
+                    search.pendingWork.decrementAndGet();
+                }
+                if (search.pendingWork.get() == 0) {
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+        /**
+         * Copies the statistics and the sizes of this worker for the sampling thread
+         */
+        private void publish() {
+            long openSize = open.size();
+            long closedSize = Math.max(0, bestNodes.size() - openSize);
+            long memory = nodes.memory() + bestNodes.memory() + open.memory();
+            synchronized (published) {
+                published.copy(stats);
+                published.setSizes(openSize, closedSize, memory);
+            }
+        }
+
+        /**
+         * Expands a number of nodes from the open list
+         * @return Whether any node has been removed from the open list
+         */
+        private boolean expand() {
+            boolean progress = false;
+            for (int i = 0; i < BATCH_SIZE && !open.isEmpty(); i++) {
+                progress = true;
+                int node = open.remove();
+                long[] states = nodes.getStates();
+                int offset = nodes.getOffset(node);
+
+                // Skip the node if it has been superseded, or cannot lead to a better solution
+                int steps = nodes.getSteps(node);
+                if (bestNodes.get(states, offset) != node
+                        || steps + nodes.getEstimate(node) >= search.bestSteps.get()) {
+                    continue;
+                }
+                game.unpackState(states, offset);
+                if (game.isFinalState()) {
+                    search.recordSolution(id, node, steps);
+                    continue;
+                }
+                int children = 0;
+
+                // Skip the move that returns to the parent state
+                int backMove = nodes.getBackMove(node);
+                int valid = game.getValidMoveMask();
+                for (int m = 0; m < moves.length; m++) {
+                    if (m == backMove || (valid & 1 << m) == 0) continue;
+                    game.move(moves[m]);
+                    game.packState(buffer, 0);
+                    int estimate = game.estimate();
+                    game.undo();
+                    stats.improve(estimate);
+                    if (steps + 1 + estimate >= search.bestSteps.get()) continue;
+                    children++;
+
+                    int target = search.owner(buffer, 0);
+                    if (target == id) {
+                        insert(buffer, 0, id, node, m, steps + 1, estimate);
+                    } else {
+                        send(target, node, m, steps + 1, estimate);
+                    }
+                }
+                stats.expand(children);
+            }
+            // Do not hold back the states of other workers for too long
+            if (progress) {
+                flushAll();
+            }
+            return progress;
+        }
+
+        /**
+         * Adds a state owned by this worker unless it has already been reached within as many steps
+         */
+        private void insert(long[] state, int offset, int parentWorker, int parent, int move, int steps, int estimate) {
+            int previous = bestNodes.get(state, offset);
+            if (previous != -1 && nodes.getSteps(previous) <= steps) {
+                return;
+            }
+            int node = nodes.add(state, offset, parent, move, estimate, steps);
+            if (node == parentWorkers.length) {
+                parentWorkers = Arrays.copyOf(parentWorkers, node * 2);
+            }
+            parentWorkers[node] = parentWorker;
+            bestNodes.put(state, offset, node);
+            open.add(node, steps, estimate);
+        }
+
+        private void receive(long[] batch) {
+            for (int i = 0; i < batch.length; i += entrySize) {
+                long parent = batch[i + words];
+                long info = batch[i + words + 1];
+                insert(batch, i, (int) (parent >>> 32), (int) parent,
+                        (int) info & 0xFFFF, (int) (info >>> 32), (int) (info >>> 16) & 0xFFFF);
+            }
+        }
+
+        /**
+         * Appends the state in the buffer to the outbox of its owner
+         */
+        private void send(int target, int parent, int move, int steps, int estimate) {
+            long[] outbox = outboxes[target];
+            int i = outboxSizes[target];
+            System.arraycopy(buffer, 0, outbox, i, words);
+            outbox[i + words] = ((long) id << 32) | (parent & 0xFFFFFFFFL);
+            outbox[i + words + 1] = ((long) steps << 32) | ((long) (estimate & 0xFFFF) << 16) | move;
+            outboxSizes[target] = i + entrySize;
+            if (outboxSizes[target] == outbox.length) {
+                flush(target);
+            }
+        }
+
+        private void flush(int target) {
+            if (outboxSizes[target] == 0) return;
+            long[] batch = Arrays.copyOf(outboxes[target], outboxSizes[target]);
+            outboxSizes[target] = 0;
+            // Count the batch before it becomes visible to its receiver
+            search.pendingWork.incrementAndGet();
+            search.workers[target].inbox.add(batch);
+        }
+
+        private void flushAll() {
+            for (int target = 0; target < search.numThreads; target++) {
+                flush(target);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package solutions;
+
+import game.Game;
+import game.Move;
+import utils.StateTable;
+
+/**
+ * The exact number of moves to the final state of every state within a number of moves of it (the perimeter),
+ * found by a breadth-first search from the final state. Each state also keeps the first move of a shortest path,
+ * so a search that reaches the perimeter can finish with the exact remaining moves instead of searching on.
+ *
+ * The table is read-only once built, so it can be shared by solutions running on multiple threads
+ */
+public class PerimeterTable {
+    private static final int MOVE_BITS = 2;
+    private static final int MOVE_MASK = (1 << MOVE_BITS) - 1;
+
+    private final int depth;
+    private final int words;
+    private final Move[] moves;
+    // Each state maps to its distance in the upper bits and the index of the move towards the final state
+    private final StateTable distances;
+
+    /**
+     * @param game A game in its final state, which is not modified
+     * @param depth The greatest number of moves of the states in the table
+     */
+    public PerimeterTable(Game game, int depth) {
+        assert game.isFinalState() : "The table is built from the final state";
+        assert depth >= 0 : "The depth needs to be non-negative";
+        this.depth = depth;
+        words = game.getPackedSize();
+        moves = game.getAllMoves();
+        assert moves.length <= 1 << MOVE_BITS : "Too many moves";
+        distances = new StateTable(words);
+
+        int[] reverses = game.getReverseMoves();
+        Game scratch = game.copy();
+        long[] layer = new long[words];
+        scratch.packState(layer, 0);
+        distances.put(layer, 0, 0);
+        int layerSize = 1;
+        long[] buffer = new long[words];
+        for (int distance = 1; distance <= depth && layerSize > 0; distance++) {
+            long[] next = new long[Math.max(1, layerSize * moves.length) * words];
+            int nextSize = 0;
+            for (int j = 0; j < layerSize; j++) {
+                scratch.unpackState(layer, j * words);
+                int valid = scratch.getValidMoveMask();
+                for (int i = 0; i < moves.length; i++) {
+                    if ((valid & 1 << i) == 0) continue;
+                    scratch.move(moves[i]);
+                    scratch.packState(buffer, 0);
+                    if (distances.get(buffer, 0) == -1) {
+                        // The reverse move leads back towards the final state
+                        distances.put(buffer, 0, distance << MOVE_BITS | reverses[i]);
+                        System.arraycopy(buffer, 0, next, nextSize++ * words, words);
+                    }
+                    scratch.undo();
+                }
+            }
+            layer = next;
+            layerSize = nextSize;
+        }
+    }
+
+    /**
+     * Get the number of moves from a state to the final state
+     * @param state The array containing the packed state
+     * @param offset The index of the first word of the state
+     * @return The number of moves, or -1 if the state is not in the table (it needs more than {@code depth} moves)
+     */
+    public int lookup(long[] state, int offset) {
+        int value = distances.get(state, offset);
+        return value == -1 ? -1 : value >>> MOVE_BITS;
+    }
+
+    /**
+     * Executes a shortest path to the final state on a game
+     * @param game A game in a state in the table
+     */
+    public void finish(Game game) {
+        long[] buffer = new long[words];
+        game.packState(buffer, 0);
+        assert lookup(buffer, 0) != -1 : "The state is not in the table";
+        for (int value = distances.get(buffer, 0); value >>> MOVE_BITS > 0; value = distances.get(buffer, 0)) {
+            game.move(moves[value & MOVE_MASK]);
+            game.packState(buffer, 0);
+        }
+    }
+
+    // Getters & setters
+    public int getDepth() {
+        return depth;
+    }
+
+    public int size() {
+        return distances.size();
+    }
+
+    /**
+     * Get the size of the table
+     * @return The size in bytes
+     */
+    public long memory() {
+        return distances.memory();
+    }
+}
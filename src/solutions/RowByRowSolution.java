@@ -0,0 +1,369 @@
+package solutions;
+
+import game.Game;
+import heuristics.DistanceTable;
+import slidingpuz.BoardCodec;
+import slidingpuz.BoardImpl;
+import slidingpuz.SlidingPuzGame;
+import slidingpuz.SlidingPuzMove;
+import utils.Helper;
+
+import java.util.Arrays;
+
+public class RowByRowSolution extends SearchSolution {
+    // The size of the last sub-board, which is solved exactly
+    private static final int FINAL_SIZE = 3;
+
+    // The board being solved, in row-major order
+    private int height;
+    private int width;
+    private int[] cells;
+    private int[] positions;  // The cell of each tile
+    private boolean[] locked;
+    private int lockedCount;
+    private StringBuilder moves;
+
+    // Scratch space of the breadth-first searches
+    private int[] queue;
+    private int[] previous;
+    private int[] visited;
+    private int stamp;
+
+    @Override
+    public String solve(Game game, int verbose) {
+        /*
+         * This solution solves the board one line at a time. The top row or the left column of the unsolved
+         * part (whichever is longer) is solved and locked, until the unsolved part is at most 3x3, which is
+         * solved exactly with the distance table of its size.
+         *
+         * Each tile of a line is moved along a shortest path to its target, and before each step the empty
+         * cell is brought in front of the tile around the tile and the locked cells. The last 2 tiles of a line
+         * cannot be placed one after the other, since placing the last tile would move the one before it. They
+         * are both brought into the 3x2 window at the end of the line, which is then solved by a search over
+         * the positions of the 2 tiles and the empty cell. All searches are over the cells of the board, so the
+         * time is polynomial in the size of the board, and the solution is not optimal
+         */
+        if (!(game instanceof SlidingPuzGame)) {
+            throw new IllegalArgumentException("Only sliding puzzles are supported");
+        }
+        SlidingPuzGame puzzle = (SlidingPuzGame) game;
+        height = puzzle.getHeight();
+        width = puzzle.getWidth();
+        readBoard(puzzle);
+        startSearch(verbose, game.estimate());
+
+        int top = 0, left = 0;
+        while (height - top > FINAL_SIZE || width - left > FINAL_SIZE) {
+            if (height - top >= width - left) {
+                solveLine(top, left, false);
+                top++;
+            } else {
+                solveLine(top, left, true);
+                left++;
+            }
+        }
+        solveFinal(top, left);
+
+        // Replay the moves on the game so that it ends up in the final state
+        String path = moves.toString();
+        cells = null;
+        positions = null;
+        locked = null;
+        moves = null;
+        queue = previous = visited = null;
+        Helper.replay(game, path);
+        return finishSearch(game.getPastMoves());
+    }
+
+    @Override
+    protected void updateSizes() {
+        long memory = locked == null ? 0 : (long) cells.length * (4 + 4 + 1 + 4 + 4 + 4);
+        stats.setSizes(0, lockedCount, memory);
+    }
+
+    /**
+     * Solves the top row (or the left column) of the unsolved part of the board, and locks its cells
+     * @param top The first unsolved row
+     * @param left The first unsolved column
+     * @param vertical Whether the left column is solved instead of the top row
+     */
+    private void solveLine(int top, int left, boolean vertical) {
+        int length = vertical ? height - top : width - left;
+        for (int i = 0; i < length - 2; i++) {
+            int target = lineCell(top, left, vertical, i, 0);
+            moveTile(target + 1, target);
+            lock(target);
+        }
+
+        // The last 2 tiles: place the first, bring the second into the window, then solve the window
+        int first = lineCell(top, left, vertical, length - 2, 0);
+        int second = lineCell(top, left, vertical, length - 1, 0);
+        int[] window = new int[6];
+        for (int j = 0; j < 3; j++) {
+            window[2 * j] = lineCell(top, left, vertical, length - 2, j);
+            window[2 * j + 1] = lineCell(top, left, vertical, length - 1, j);
+        }
+        moveTile(first + 1, first);
+        lock(first);
+        if (indexOf(window, positions[second + 1]) == -1) {
+            moveTile(second + 1, window[3]);
+        }
+        lock(positions[second + 1]);
+        for (int cell : window) {
+            if (!locked[cell] && moveBlank(cell, -1)) break;
+        }
+        unlock(first);
+        unlock(positions[second + 1]);
+        solveWindow(window, first + 1, second + 1);
+        lock(first);
+        lock(second);
+    }
+
+    /**
+     * Find the cell at an offset from the start of a line
+     * @param along The offset along the line
+     * @param across The offset away from the line, into the unsolved part
+     */
+    private int lineCell(int top, int left, boolean vertical, int along, int across) {
+        return vertical ? (top + along) * width + left + across : (top + across) * width + left + along;
+    }
+
+    /**
+     * Moves 2 tiles to the first 2 cells of a window containing them and the empty cell, only moving the
+     * empty cell within the window. The other tiles in the window are interchangeable
+     * @param window The 6 cells of a window of 3x2 cells
+     */
+    private void solveWindow(int[] window, int first, int second) {
+        // A state is (first, second, empty) as indices into the window
+        int[] parents = new int[216];
+        Arrays.fill(parents, -1);
+        int start = encodeWindow(indexOf(window, positions[first]), indexOf(window, positions[second]),
+                indexOf(window, positions[0]));
+        int[] states = new int[216];
+        states[0] = start;
+        parents[start] = start;
+        int goal = -1;
+        for (int head = 0, tail = 1; head < tail; head++) {
+            int state = states[head];
+            int a = state / 36, b = state / 6 % 6, e = state % 6;
+            if (a == 0 && b == 1) {
+                goal = state;
+                break;
+            }
+            for (int n = 0; n < 6; n++) {
+                if (!isAdjacent(window[e], window[n])) continue;
+                int next = encodeWindow(n == a ? e : a, n == b ? e : b, n);
+                if (parents[next] == -1) {
+                    parents[next] = state;
+                    states[tail++] = next;
+                }
+            }
+        }
+        assert goal != -1 : "The window cannot be solved";
+
+        // Follow the parents back to the start, then replay the positions of the empty cell
+        int length = 0;
+        for (int state = goal; state != start; state = parents[state]) {
+            states[length++] = state % 6;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            slide(window[states[i]]);
+        }
+    }
+
+    private static int encodeWindow(int first, int second, int empty) {
+        return first * 36 + second * 6 + empty;
+    }
+
+    /**
+     * Solves the unsolved part of the board, which is at most 3x3, by following decreasing distances
+     */
+    private void solveFinal(int top, int left) {
+        int rows = height - top, cols = width - left;
+        BoardImpl board = new BoardImpl(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                // Relabel the tiles by their target cells in the sub-board
+                int tile = cells[(top + r) * width + left + c];
+                int target = ((tile - 1) / width - top) * cols + (tile - 1) % width - left;
+                board.set(r, c, tile == 0 ? 0 : target + 1);
+            }
+        }
+        DistanceTable table = new DistanceTable(rows, cols);
+        for (int distance = table.lookup(board); distance > 0; distance--) {
+            int empty = positions[0];
+            int r = empty / width - top, c = empty % width - left;
+            int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+            for (int[] direction : directions) {
+                int nr = r + direction[0], nc = c + direction[1];
+                if (!board.inBound(nr, nc)) continue;
+                board.swap(r, c, nr, nc);
+                if (table.lookup(board) == distance - 1) {
+                    slide((top + nr) * width + left + nc);
+                    break;
+                }
+                board.swap(r, c, nr, nc);
+            }
+        }
+    }
+
+    /**
+     * Moves a tile to a cell along a shortest path through the unlocked cells
+     * @param tile The tile
+     * @param target The target cell, which is not locked
+     */
+    private void moveTile(int tile, int target) {
+        int[] path = findPath(positions[tile], target, -1, false);
+        if (path == null) {
+            throw new IllegalStateException("Tile " + tile + " cannot reach its target");
+        }
+        for (int cell : path) {
+            // Bring the empty cell in front of the tile without moving the tile, then swap them
+            if (!moveBlank(cell, positions[tile])) {
+                throw new IllegalStateException("The empty cell cannot reach tile " + tile);
+            }
+            slide(positions[tile]);
+        }
+    }
+
+    /**
+     * Moves the empty cell along a shortest path through the unlocked cells
+     * @param target The target cell
+     * @param avoid A cell that cannot be passed, or -1
+     * @return Whether the target can be reached
+     */
+    private boolean moveBlank(int target, int avoid) {
+        int[] path = findPath(positions[0], target, avoid, true);
+        if (path == null) {
+            return false;
+        }
+        for (int cell : path) {
+            slide(cell);
+        }
+        return true;
+    }
+
+    /**
+     * Find a shortest path between 2 cells through the unlocked cells
+     * @param avoid A cell that cannot be passed, or -1
+     * @param counted Whether the cells visited are counted as expanded states
+     * @return The cells after the source in order, or null if the target cannot be reached
+     */
+    private int[] findPath(int source, int target, int avoid, boolean counted) {
+        stamp++;
+        queue[0] = source;
+        visited[source] = stamp;
+        for (int head = 0, tail = 1; head < tail; head++) {
+            int cell = queue[head];
+            if (cell == target) {
+                int length = 0;
+                for (int i = cell; i != source; i = previous[i]) {
+                    length++;
+                }
+                int[] path = new int[length];
+                for (int i = cell; i != source; i = previous[i]) {
+                    path[--length] = i;
+                }
+                return path;
+            }
+            int children = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                int next = neighbor(cell, direction);
+                if (next == -1 || next == avoid || locked[next] || visited[next] == stamp) continue;
+                visited[next] = stamp;
+                previous[next] = cell;
+                queue[tail++] = next;
+                children++;
+            }
+            if (counted) {
+                expanded(children);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves the tile in an adjacent cell into the empty cell, recording the move
+     * @param cell The cell of the tile
+     */
+    private void slide(int cell) {
+        int empty = positions[0];
+        int tile = cells[cell];
+        // The moves are named by the direction the tile moves in
+        SlidingPuzMove move;
+        if (cell == empty + width) {
+            move = SlidingPuzMove.UP;
+        } else if (cell == empty - width) {
+            move = SlidingPuzMove.DOWN;
+        } else if (cell == empty + 1) {
+            move = SlidingPuzMove.LEFT;
+        } else {
+            assert cell == empty - 1 : "The cell is not adjacent to the empty cell";
+            move = SlidingPuzMove.RIGHT;
+        }
+        cells[empty] = tile;
+        cells[cell] = 0;
+        positions[tile] = empty;
+        positions[0] = cell;
+        moves.append(move.toChar());
+    }
+
+    private void readBoard(SlidingPuzGame game) {
+        int n = height * width;
+        long[] state = new long[game.getPackedSize()];
+        game.packState(state, 0);
+        BoardCodec codec = new BoardCodec(height, width);
+        cells = new int[n];
+        positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            cells[i] = codec.get(state, 0, i);
+            positions[cells[i]] = i;
+        }
+        locked = new boolean[n];
+        lockedCount = 0;
+        moves = new StringBuilder();
+        queue = new int[n];
+        previous = new int[n];
+        visited = new int[n];
+        stamp = 0;
+    }
+
+    private void lock(int cell) {
+        locked[cell] = true;
+        lockedCount++;
+    }
+
+    private void unlock(int cell) {
+        locked[cell] = false;
+        lockedCount--;
+    }
+
+    /**
+     * Find the cell next to a cell in one of the 4 directions
+     * @return The cell, or -1 if it is out of bounds
+     */
+    private int neighbor(int cell, int direction) {
+        int r = cell / width, c = cell % width;
+        switch (direction) {
+            case 0:
+                return r > 0 ? cell - width : -1;
+            case 1:
+                return r < height - 1 ? cell + width : -1;
+            case 2:
+                return c > 0 ? cell - 1 : -1;
+            default:
+                return c < width - 1 ? cell + 1 : -1;
+        }
+    }
+
+    private boolean isAdjacent(int a, int b) {
+        return Math.abs(a - b) == width || (Math.abs(a - b) == 1 && a / width == b / width);
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) return i;
+        }
+        return -1;
+    }
+}
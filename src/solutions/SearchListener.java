@@ -0,0 +1,25 @@
+package solutions;
+
+public interface SearchListener {
+    /**
+     * Called periodically during a search, on the thread running the search
+     * @param stats The statistics so far. The object is reused, so it should not be kept after returning
+     */
+    void onSample(SearchStats stats);
+
+    /**
+     * Called by anytime solutions each time a better solution is found, on the thread running the search
+     * @param stats The statistics so far. The object is reused, so it should not be kept after returning
+     * @param solution The moves of the solution
+     * @param bound The solution is at most {@code bound} times as long as an optimal solution
+     */
+    default void onSolution(SearchStats stats, String solution, double bound) {
+    }
+
+    /**
+     * Called once at the end of a search
+     * @param stats The final statistics
+     * @param solution The result of the search, or an empty string if no solution was found
+     */
+    void onFinish(SearchStats stats, String solution);
+}
@@ -0,0 +1,125 @@
+package solutions;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Keeps the statistics of a search and publishes them to a listener. The solutions report each expanded
+ * state through {@link #expanded}, which only compares a counter unless a sample is due. A search whose thread
+ * is interrupted stops with a {@link CancellationException}, leaving the game in an unspecified state
+ */
+public abstract class SearchSolution implements Solution {
+    private static final long DEFAULT_SAMPLE_INTERVAL = 1 << 16;
+    // The number of expanded states between checks for an interrupt (a power of 2)
+    private static final long INTERRUPT_INTERVAL = 1 << 10;
+    private static final SearchListener CONSOLE = new ConsoleSearchListener();
+
+    protected final SearchStats stats = new SearchStats();
+    private SearchListener listener;
+    private long sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+
+    // The listener of the current search
+    private SearchListener activeListener;
+    private long nextSample;
+
+    @Override
+    public void setListener(SearchListener listener, long sampleInterval) {
+        assert sampleInterval >= 1 : "The sample interval needs to be positive";
+        this.listener = listener;
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Resets the statistics at the start of a search
+     * @param verbose The verbose level passed to {@code solve}. The statistics are printed to the console
+     *                if it is at least 1 and no listener is specified
+     * @param estimate The estimate of the starting state
+     */
+    protected void startSearch(int verbose, int estimate) {
+        activeListener = listener != null ? listener : verbose >= 1 ? CONSOLE : null;
+        stats.start(estimate);
+        nextSample = sampleInterval;
+    }
+
+    /**
+     * Records an expanded state, and publishes a sample every {@code sampleInterval} states
+     * @param children The number of states generated by the expansion
+     * @throws CancellationException If the thread has been interrupted, which is checked every
+     *                               {@code INTERRUPT_INTERVAL} states. The search is finished first, and
+     *                               the interrupt status is kept
+     */
+    protected final void expanded(int children) {
+        stats.expand(children);
+        sample();
+        if ((stats.getExpanded() & (INTERRUPT_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+            finishSearch("");
+            throw new CancellationException("The search was interrupted");
+        }
+    }
+
+    /**
+     * Publishes a sample if at least {@code sampleInterval} states have been expanded since the last one
+     */
+    protected final void sample() {
+        if (activeListener != null && stats.getExpanded() >= nextSample) {
+            nextSample = stats.getExpanded() + sampleInterval;
+            updateSizes();
+            activeListener.onSample(stats);
+        }
+    }
+
+    /**
+     * Records the estimate of a newly reached state
+     * @param estimate The estimate
+     */
+    protected final void reached(int estimate) {
+        if (estimate < stats.getBestEstimate()) {
+            stats.improve(estimate);
+        }
+    }
+
+    /**
+     * Publishes a solution found before the end of the search
+     * @param solution The moves of the solution
+     * @param bound The solution is at most {@code bound} times as long as an optimal solution
+     */
+    protected final void improved(String solution, double bound) {
+        if (activeListener != null) {
+            updateSizes();
+            activeListener.onSolution(stats, solution, bound);
+        }
+    }
+
+    /**
+     * Finishes the statistics at the end of a search, then releases its data structures
+     * @param solution The result of the search
+     * @return The result of the search
+     */
+    protected String finishSearch(String solution) {
+        updateSizes();
+        stats.finish();
+        if (activeListener != null) {
+            activeListener.onFinish(stats, solution);
+        }
+        activeListener = null;
+        releaseSearch();
+        return solution;
+    }
+
+    /**
+     * Refreshes the sizes of the open and closed lists and the memory estimate in {@link #stats}. Only called
+     * before a sample is published
+     */
+    protected abstract void updateSizes();
+
+    /**
+     * Drops the data structures of a finished search, so that a solution kept for later searches does not
+     * hold on to them. Also called when a search is cancelled
+     */
+    protected void releaseSearch() {
+    }
+}
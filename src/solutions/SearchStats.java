@@ -0,0 +1,163 @@
+package solutions;
+
+/**
+ * Statistics of a search. The counters are updated by the solution while searching, the sizes and the
+ * memory estimate are refreshed before each sample is published
+ */
+public class SearchStats {
+    private long expanded;
+    private long generated;
+    private long openSize;
+    private long closedSize;
+    private long memory;
+    private long peakMemory;
+    private int initialEstimate;
+    private int bestEstimate;
+    private long startTime;
+    private long firstImprovementTime;
+    private long endTime;
+
+    void start(int estimate) {
+        expanded = 0;
+        generated = 0;
+        openSize = 0;
+        closedSize = 0;
+        memory = 0;
+        peakMemory = 0;
+        initialEstimate = estimate;
+        bestEstimate = estimate;
+        startTime = System.nanoTime();
+        firstImprovementTime = -1;
+        endTime = -1;
+    }
+
+    void finish() {
+        endTime = System.nanoTime();
+    }
+
+    void expand(int children) {
+        expanded++;
+        generated += children;
+    }
+
+    void improve(int estimate) {
+        if (estimate < bestEstimate) {
+            bestEstimate = estimate;
+            if (firstImprovementTime == -1) {
+                firstImprovementTime = System.nanoTime();
+            }
+        }
+    }
+
+    void setSizes(long openSize, long closedSize, long memory) {
+        this.openSize = openSize;
+        this.closedSize = closedSize;
+        this.memory = memory;
+        peakMemory = Math.max(peakMemory, memory);
+    }
+
+    /**
+     * Replaces all values with the values of another object
+     */
+    void copy(SearchStats other) {
+        expanded = other.expanded;
+        generated = other.generated;
+        openSize = other.openSize;
+        closedSize = other.closedSize;
+        memory = other.memory;
+        peakMemory = other.peakMemory;
+        initialEstimate = other.initialEstimate;
+        bestEstimate = other.bestEstimate;
+        startTime = other.startTime;
+        firstImprovementTime = other.firstImprovementTime;
+        endTime = other.endTime;
+    }
+
+    /**
+     * Replaces the counters with the totals of several searches running in parallel
+     */
+    void sum(SearchStats[] parts) {
+        expanded = 0;
+        generated = 0;
+        for (SearchStats part : parts) {
+            expanded += part.expanded;
+            generated += part.generated;
+            if (part.bestEstimate < bestEstimate) {
+                bestEstimate = part.bestEstimate;
+            }
+            if (part.firstImprovementTime != -1
+                    && (firstImprovementTime == -1 || part.firstImprovementTime < firstImprovementTime)) {
+                firstImprovementTime = part.firstImprovementTime;
+            }
+        }
+    }
+
+    /**
+     * Get the time since the start of the search, or the duration of the search if it has finished
+     * @return The time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return (endTime == -1 ? System.nanoTime() : endTime) - startTime;
+    }
+
+    public double getNodesPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0 : expanded * 1e9 / elapsed;
+    }
+
+    /**
+     * Get the time between the start of the search and the first state with a lower estimate than the starting state
+     * @return The time in nanoseconds, or -1 if the estimate has not improved
+     */
+    public long getTimeToFirstImprovementNanos() {
+        return firstImprovementTime == -1 ? -1 : firstImprovementTime - startTime;
+    }
+
+    // Getters & setters
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    public long getOpenSize() {
+        return openSize;
+    }
+
+    public long getClosedSize() {
+        return closedSize;
+    }
+
+    /**
+     * Get the estimated size of the data structures of the search, excluding the JVM's own overhead
+     * @return The size in bytes
+     */
+    public long getMemory() {
+        return memory;
+    }
+
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+
+    public int getInitialEstimate() {
+        return initialEstimate;
+    }
+
+    public int getBestEstimate() {
+        return bestEstimate;
+    }
+
+    public boolean isFinished() {
+        return endTime != -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d expanded, %d generated, %.0f nodes/s, open %d, closed %d, best %d/%d, %.1f MB",
+                expanded, generated, getNodesPerSecond(), openSize, closedSize, bestEstimate, initialEstimate,
+                peakMemory / 1e6);
+    }
+}
@@ -6,7 +6,21 @@ public interface Solution {
     /**
      * Search for the near optimal solution to the given game
      * @param game The game to be solved
+     * @param verbose Prints the statistics to the console if at least 1 and no listener is specified
      * @return A String of moves (represented in char) in order to solve the game
      */
     String solve(Game game, int verbose);
+
+    /**
+     * Get the statistics of the current or the last search
+     * @return The statistics, updated in place by later searches
+     */
+    SearchStats getStats();
+
+    /**
+     * Receive the statistics periodically during each search
+     * @param listener The listener, or null to stop receiving the statistics
+     * @param sampleInterval The number of states expanded between two samples
+     */
+    void setListener(SearchListener listener, long sampleInterval);
 }
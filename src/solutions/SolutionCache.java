@@ -0,0 +1,215 @@
+package solutions;
+
+import game.Game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps boards to the moves that solve them. The boards are keyed by their packed state, so the moves already
+ * made on a game do not matter. The most recently used entries are kept in memory, up to a number of entries,
+ * and the entries can also be kept in a directory with one file per board, so they outlive the process. The
+ * files are named by the SHA-256 digest of the key, so the names stay short on any board, and hold the key on
+ * their first line and the moves on the second.
+ *
+ * The keys do not include the size of the board, so a cache (and its directory) should only be used for one
+ * size. All methods are thread-safe
+ */
+public class SolutionCache {
+    private final int maxEntries;
+    private final Path directory;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxEntries The greatest number of entries kept in memory
+     * @param directory The directory keeping the entries on disk, or null to keep them in memory only
+     */
+    public SolutionCache(int maxEntries, Path directory) {
+        assert maxEntries >= 1 : "The cache needs at least 1 entry";
+        this.maxEntries = maxEntries;
+        this.directory = directory;
+        // Iterated in access order, so the eldest entry is the least recently used one
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SolutionCache.this.maxEntries;
+            }
+        };
+    }
+
+    public SolutionCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * Find the key of the current board of a game
+     * @param game The game
+     * @return The packed state in hexadecimal
+     */
+    public static String key(Game game) {
+        long[] state = new long[game.getPackedSize()];
+        game.packState(state, 0);
+        StringBuilder key = new StringBuilder(state.length * 16);
+        for (long word : state) {
+            String hex = Long.toHexString(word);
+            key.append("0".repeat(16 - hex.length())).append(hex);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Find the moves solving a board, in memory first and then on disk
+     * @param key The key of the board
+     * @return The moves (represented in char) in order, or null if the board is not cached
+     */
+    public String get(String key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null || directory == null) {
+                count(entry != null);
+                return entry == null ? null : entry.getMoves();
+            }
+        }
+        String moves = read(key);
+        synchronized (this) {
+            if (moves != null) {
+                entries.put(key, new Entry(moves, 0));
+            }
+            count(moves != null);
+        }
+        return moves;
+    }
+
+    /**
+     * Adds the moves solving a board
+     * @param key The key of the board
+     * @param moves The moves (represented in char) in order
+     * @param persistent Whether the entry is also written to disk
+     */
+    public void put(String key, String moves, boolean persistent) {
+        synchronized (this) {
+            entries.put(key, new Entry(moves, 0));
+        }
+        if (persistent && directory != null) {
+            write(key, moves);
+        }
+    }
+
+    /**
+     * Adds the moves solving a board in memory only, as the end of the moves solving another board. The moves
+     * are shared instead of copied, so caching every board along a solution takes linear memory
+     * @param key The key of the board
+     * @param moves The moves (represented in char) solving the other board
+     * @param offset The index of the first move solving this board
+     */
+    public synchronized void putSuffix(String key, String moves, int offset) {
+        entries.put(key, new Entry(moves, offset));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Helpers
+    private void count(boolean hit) {
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    /**
+     * The files are spread over 256 sub-directories by the first byte of the digest
+     */
+    private Path path(String key) {
+        String digest = digest(key);
+        return directory.resolve(digest.substring(0, 2)).resolve(digest + ".txt");
+    }
+
+    private static String digest(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder digest = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                digest.append(String.format("%02x", b));
+            }
+            return digest.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return The moves, or null if there is no file for the key, or the file is for another key with the same
+     *         digest
+     */
+    private String read(String key) {
+        String content;
+        try {
+            content = Files.readString(path(key), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int split = content.indexOf('\n');
+        return split != -1 && content.substring(0, split).equals(key) ? content.substring(split + 1) : null;
+    }
+
+    /**
+     * Writes to a temporary file first, so that a reader never sees a partial entry
+     */
+    private void write(String key, String moves) {
+        Path path = path(key);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), null, ".tmp");
+            Files.writeString(temp, key + "\n" + moves, StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The moves of an entry, which may start in the middle of a longer string
+     */
+    private static class Entry {
+        private final String moves;
+        private final int offset;
+
+        Entry(String moves, int offset) {
+            this.moves = moves;
+            this.offset = offset;
+        }
+
+        String getMoves() {
+            return offset == 0 ? moves : moves.substring(offset);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package solutions;
+
+public class SolutionFactory {
+    /**
+     * Create a solution by its name
+     * @param name One of {@code astar}, {@code smastar} (A* bounded by the heap), {@code idastar},
+     *             {@code bidirectional}, {@code parallel}, {@code anytime}, {@code beam} and {@code rowbyrow}
+     * @param h The height of the boards to be solved
+     * @param w The width of the boards to be solved
+     * @return The solution
+     */
+    public static Solution create(String name, int h, int w) {
+        switch (name) {
+            case "astar":
+                return new AStarSolution(4 * ((h - 1) + (w - 1)));
+            case "smastar":
+                return new AStarSolution(4 * ((h - 1) + (w - 1)), AStarSolution.FIT_HEAP);
+            case "idastar":
+                return new IDAStarSolution();
+            case "bidirectional":
+                return new BidirectionalSolution();
+            case "parallel":
+                return new ParallelAStarSolution();
+            case "anytime":
+                return new AnytimeAStarSolution();
+            case "beam":
+                return new BeamSearchSolution();
+            case "rowbyrow":
+                return new RowByRowSolution();
+            default:
+                throw new IllegalArgumentException("Unknown solution: " + name);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package tests;
+
+import instances.InstanceCorpus;
+import instances.InstanceGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TestInstanceCorpus {
+    private static int failures = 0;
+
+    /**
+     * Usage: {@code TestInstanceCorpus [seed]}. Checks that a corpus reads back the boards and distances it
+     * was written with, including distances that do not fit in a short
+     */
+    public static void main(String[] args) throws IOException {
+        long seed = args.length >= 1 ? Long.parseLong(args[0]) : 1;
+
+        System.out.println("Corpus round trip:");
+        InstanceGenerator generator = new InstanceGenerator(4, 4, seed);
+        int[] distances = { 0, 17, InstanceCorpus.UNKNOWN, 32767, 32768, 40000, Integer.MAX_VALUE };
+        String[] states = new String[distances.length];
+        InstanceCorpus corpus = new InstanceCorpus(4, 4);
+        for (int i = 0; i < distances.length; i++) {
+            states[i] = generator.uniform();
+            corpus.add(states[i], distances[i]);
+        }
+
+        Path path = Files.createTempFile("corpus", ".bin");
+        try {
+            corpus.write(path);
+            check(InstanceCorpus.isCorpus(path), "the file is not recognized as a corpus");
+            InstanceCorpus read = InstanceCorpus.read(path);
+            check(read.getHeight() == 4 && read.getWidth() == 4, "the board size differs");
+            check(read.size() == distances.length, read.size() + " boards read, expected " + distances.length);
+            for (int i = 0; i < Math.min(read.size(), distances.length); i++) {
+                check(read.getState(i).equals(states[i]), "board " + i + " differs: " + read.getState(i));
+                check(read.getDistance(i) == distances[i],
+                        "distance " + i + " is " + read.getDistance(i) + ", expected " + distances[i]);
+            }
+        } finally {
+            Files.delete(path);
+        }
+
+        try {
+            corpus.add(states[0], -2);
+            check(false, "a negative distance is accepted");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        System.out.println(failures == 0 ? "\nAll tests passed" : "\n" + failures + " tests failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Helpers
+    private static void check(boolean passed, String message) {
+        if (!passed) {
+            failures++;
+            System.out.println("FAIL: " + message);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package tests;
+
+import instances.InstanceGenerator;
+import slidingpuz.SlidingPuzGame;
+import solutions.CachedSolution;
+import solutions.SolutionCache;
+import solutions.SolutionFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class TestSolutionCache {
+    private static int failures = 0;
+
+    /**
+     * Usage: {@code TestSolutionCache [seed]}. Checks that the boards of a large size are read back from the
+     * cache directory, and that a solved board stays cached after the boards along its solution
+     */
+    public static void main(String[] args) throws IOException {
+        long seed = args.length >= 1 ? Long.parseLong(args[0]) : 1;
+
+        Path directory = Files.createTempDirectory("solution-cache");
+        try {
+            testLargeKey(directory, seed);
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+        testStartKept(seed);
+
+        System.out.println(failures == 0 ? "\nAll tests passed" : "\n" + failures + " tests failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The key of a 12x12 board is longer than a file name may be
+     */
+    private static void testLargeKey(Path directory, long seed) {
+        System.out.println("12x12 board on disk:");
+        InstanceGenerator generator = new InstanceGenerator(12, 12, seed);
+        SlidingPuzGame game = new SlidingPuzGame(12, 12);
+        game.loadState(generator.walk(10));
+        String key = SolutionCache.key(game);
+        String moves = SolutionFactory.create("idastar", 12, 12).solve(game.copy(), 0);
+
+        new SolutionCache(16, directory).put(key, moves, true);
+        // A new cache only finds the board on disk
+        SolutionCache cache = new SolutionCache(16, directory);
+        check(moves.equals(cache.get(key)), "the moves read back differ from " + moves);
+
+        game.loadState(generator.walk(10));
+        check(cache.get(SolutionCache.key(game)) == null, "another board is found in the cache");
+    }
+
+    /**
+     * The boards along a solution fill at most half of the cache, and the starting board is not evicted
+     */
+    private static void testStartKept(long seed) {
+        System.out.println("Starting board kept:");
+        InstanceGenerator generator = new InstanceGenerator(3, 3, seed);
+        SolutionCache cache = new SolutionCache(4);
+        CachedSolution solution = new CachedSolution(SolutionFactory.create("idastar", 3, 3), cache);
+        SlidingPuzGame game = new SlidingPuzGame(3, 3);
+        game.loadState(generator.walk(20));
+        String key = SolutionCache.key(game);
+        String moves = solution.solve(game, 0);
+
+        check(cache.size() <= cache.getMaxEntries(), cache.size() + " entries in a cache of 4");
+        check(moves.equals(cache.get(key)), "the starting board is not cached");
+    }
+
+    // Helpers
+    private static void check(boolean passed, String message) {
+        if (!passed) {
+            failures++;
+            System.out.println("FAIL: " + message);
+        }
+    }
+}
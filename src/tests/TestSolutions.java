@@ -0,0 +1,114 @@
+package tests;
+
+import instances.InstanceGenerator;
+import slidingpuz.SlidingPuzGame;
+import solutions.ParallelAStarSolution;
+import solutions.Solution;
+import solutions.SolutionFactory;
+import utils.Helper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestSolutions {
+    private static int failures = 0;
+
+    /**
+     * Usage: {@code TestSolutions [boards] [seed]}. Checks that the optimal solutions find the optimal number of
+     * moves on seeded 3x3 boards, and that an interrupted parallel search stops all its workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int numBoards = args.length >= 1 ? Integer.parseInt(args[0]) : 12;
+        long seed = args.length >= 2 ? Long.parseLong(args[1]) : 1;
+
+        testOptimal(numBoards, seed);
+        testParallelInterrupt(seed);
+
+        System.out.println(failures == 0 ? "\nAll tests passed" : "\n" + failures + " tests failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The solutions compared with IDA*, which is optimal. A* stops at a threshold, so it is not compared
+     */
+    private static void testOptimal(int numBoards, long seed) {
+        System.out.println("Optimal solutions:");
+        String[] names = { "bidirectional", "parallel", "anytime" };
+        InstanceGenerator generator = new InstanceGenerator(3, 3, seed);
+        Solution optimal = SolutionFactory.create("idastar", 3, 3);
+        for (int i = 0; i < numBoards; i++) {
+            String state = generator.uniform();
+            int expected = solve(optimal, 3, state).length();
+            for (String name : names) {
+                String moves = solve(SolutionFactory.create(name, 3, 3), 3, state);
+                check(moves.length() == expected,
+                        String.format("%s on %s: %d moves, expected %d", name, state, moves.length(), expected));
+            }
+        }
+    }
+
+    /**
+     * Interrupts a parallel search of a 4x4 board several times. No worker may fail or outlive the search,
+     * and the solution can still be used afterwards
+     */
+    private static void testParallelInterrupt(long seed) throws InterruptedException {
+        System.out.println("Parallel search interrupted:");
+        AtomicInteger failed = new AtomicInteger();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> failed.incrementAndGet());
+
+        InstanceGenerator generator = new InstanceGenerator(4, 4, seed);
+        Solution solution = new ParallelAStarSolution(8);
+        for (int i = 0; i < 5; i++) {
+            String state = generator.uniform();
+            Thread search = new Thread(() -> solve(solution, 4, state));
+            search.start();
+            Thread.sleep(300);
+            search.interrupt();
+            search.join();
+        }
+        check(failed.get() == 0, failed.get() + " workers failed");
+        check(countWorkers() == 0, countWorkers() + " workers still running");
+
+        String state = generator.walk(20);
+        int expected = solve(SolutionFactory.create("idastar", 4, 4), 4, state).length();
+        int length = solve(solution, 4, state).length();
+        check(length == expected, String.format("reused on %s: %d moves, expected %d", state, length, expected));
+        Thread.setDefaultUncaughtExceptionHandler(handler);
+    }
+
+    // Helpers
+    /**
+     * Solves a square board and checks that the moves solve it
+     * @return The moves, or an empty string if the search failed
+     */
+    private static String solve(Solution solution, int n, String state) {
+        SlidingPuzGame game = new SlidingPuzGame(n, n);
+        game.loadState(state);
+        String moves = solution.solve(game, 0);
+        if (moves.isEmpty()) {
+            return moves;
+        }
+        SlidingPuzGame replay = new SlidingPuzGame(n, n);
+        replay.loadState(state);
+        Helper.replay(replay, moves);
+        check(replay.isFinalState(), "the moves do not solve " + state);
+        return moves;
+    }
+
+    private static int countWorkers() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("astar-worker-")) count++;
+        }
+        return count;
+    }
+
+    private static void check(boolean passed, String message) {
+        if (!passed) {
+            failures++;
+            System.out.println("FAIL: " + message);
+        }
+    }
+}
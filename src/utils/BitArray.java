@@ -0,0 +1,70 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A fixed number of bits indexed by {@code long}, e.g. a visited set over ranks. Uses 1 bit per entry
+ */
+public class BitArray {
+    private final long size;
+    private final long[] words;
+
+    /**
+     * @param size The number of bits, at most 2^37
+     */
+    public BitArray(long size) {
+        assert size >= 0 && (size + 63) >>> 6 <= Integer.MAX_VALUE : "The size is out of range";
+        this.size = size;
+        words = new long[(int) ((size + 63) >>> 6)];
+    }
+
+    public boolean get(long index) {
+        return (words[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    public void set(long index) {
+        words[(int) (index >>> 6)] |= 1L << index;
+    }
+
+    public void clear(long index) {
+        words[(int) (index >>> 6)] &= ~(1L << index);
+    }
+
+    /**
+     * Clears all bits
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * Find the next set bit
+     * @param from The index to start from
+     * @return The index of the first set bit at or after {@code from}, or -1 if there is none
+     */
+    public long nextSetBit(long from) {
+        if (from >= size) return -1;
+        int i = (int) (from >>> 6);
+        long word = words[i] & (-1L << from);
+        while (word == 0) {
+            if (++i == words.length) return -1;
+            word = words[i];
+        }
+        return ((long) i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Count the set bits
+     */
+    public long cardinality() {
+        long count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public long size() {
+        return size;
+    }
+}
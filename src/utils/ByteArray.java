@@ -0,0 +1,45 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A fixed number of bytes indexed by {@code long}, e.g. a distance table over ranks. The bytes are kept in
+ * pages, since a single Java array holds at most 2^31 entries
+ */
+public class ByteArray {
+    private static final int PAGE_BITS = 30;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+    private final long size;
+    private final byte[][] pages;
+
+    /**
+     * @param size The number of bytes
+     * @param value The initial value of all bytes
+     */
+    public ByteArray(long size, byte value) {
+        assert size >= 0 : "The size needs to be non-negative";
+        this.size = size;
+        int count = (int) ((size + PAGE_MASK) >>> PAGE_BITS);
+        pages = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            long length = Math.min(1L << PAGE_BITS, size - ((long) i << PAGE_BITS));
+            pages[i] = new byte[(int) length];
+            if (value != 0) {
+                Arrays.fill(pages[i], value);
+            }
+        }
+    }
+
+    public byte get(long index) {
+        return pages[(int) (index >>> PAGE_BITS)][(int) (index & PAGE_MASK)];
+    }
+
+    public void set(long index, byte value) {
+        pages[(int) (index >>> PAGE_BITS)][(int) (index & PAGE_MASK)] = value;
+    }
+
+    public long size() {
+        return size;
+    }
+}
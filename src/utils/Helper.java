@@ -1,5 +1,8 @@
 package utils;
 
+import game.Game;
+import game.Move;
+
 public class Helper {
     /**
      * Prints the state of a Number Puzzle Game
@@ -26,4 +29,51 @@ public class Helper {
 
         System.out.printf("Moves: %s\n", steps == 0 ? "none" : state.substring(0, steps));
     }
+
+    /**
+     * Find the move represented by a char
+     * @param game The game the move belongs to
+     * @param c The char of the move
+     * @return The move, or null if the game has no such move
+     */
+    public static Move findMove(Game game, char c) {
+        for (Move move : game.getAllMoves()) {
+            if (move.toChar() == c) {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Executes a series of moves on a game
+     * @param game The game
+     * @param moves A String of moves (represented in char) in order
+     */
+    public static void replay(Game game, String moves) {
+        for (int i = 0; i < moves.length(); i++) {
+            game.move(findMove(game, moves.charAt(i)));
+        }
+    }
+
+    /**
+     * Waits for threads to finish, even if the current thread is interrupted meanwhile. The interrupt status
+     * of the current thread is kept
+     * @param threads The threads, some of which may be null
+     */
+    public static void joinAll(Thread[] threads) {
+        boolean interrupted = Thread.interrupted();
+        for (Thread thread : threads) {
+            while (thread != null && thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package utils;
+
+/**
+ * Maps the permutations of n items to the integers in [0, n!) and back in linear time (Myrvold and Ruskey).
+ * The permutations are read by swapping items in place, so an instance keeps its own scratch arrays and
+ * should not be shared by multiple threads.
+ *
+ * The rank is built from the positions swapped while reducing the permutation to the identity, one item at a
+ * time from the last. The swap of the last 2 items is the most significant digit of the rank, so the ranks in
+ * [0, n!/2) and [n!/2, n!) only differ in whether the items at 0 and 1 are swapped at the end of unranking
+ */
+public class PermutationRank {
+    private final int n;
+    private final long size;
+    private final int[] items;
+    private final int[] inverse;
+    private final int[] digits;
+
+    /**
+     * @param n The number of items, at most 20 so that n! fits in a {@code long}
+     */
+    public PermutationRank(int n) {
+        assert n >= 2 && n <= 20 : "The number of items needs to be between 2 and 20";
+        this.n = n;
+        long size = 1;
+        for (int i = 2; i <= n; i++) {
+            size *= i;
+        }
+        this.size = size;
+        items = new int[n];
+        inverse = new int[n];
+        digits = new int[n];
+    }
+
+    /**
+     * Find the rank of a permutation
+     * @param permutation The permutation of 0 ~ n-1, which is not modified
+     * @return The rank in [0, n!)
+     */
+    public long rank(int[] permutation) {
+        for (int i = 0; i < n; i++) {
+            items[i] = permutation[i];
+            inverse[permutation[i]] = i;
+        }
+        // Move the item n-1 to the end, then n-2, ...
+        for (int i = n - 1; i > 0; i--) {
+            int s = items[i];
+            int j = inverse[i];
+            items[i] = items[j];
+            items[j] = s;
+            inverse[s] = j;
+            inverse[i] = i;
+            digits[i] = s;
+        }
+        long rank = 0;
+        for (int i = 1; i < n; i++) {
+            rank = digits[i] + (i + 1) * rank;
+        }
+        return rank;
+    }
+
+    /**
+     * Find the permutation of a rank
+     * @param rank The rank in [0, n!)
+     * @param permutation Receives the permutation of 0 ~ n-1
+     * @return Whether the permutation is odd
+     */
+    public boolean unrank(long rank, int[] permutation) {
+        assert rank >= 0 && rank < size : "The rank is out of range";
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+        boolean odd = false;
+        for (int i = n; i > 1; i--) {
+            int j = (int) (rank % i);
+            rank /= i;
+            if (j != i - 1) {
+                int temp = permutation[i - 1];
+                permutation[i - 1] = permutation[j];
+                permutation[j] = temp;
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    /**
+     * Get the number of permutations
+     * @return n!
+     */
+    public long size() {
+        return size;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
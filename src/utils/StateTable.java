@@ -0,0 +1,171 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash table mapping packed states (a fixed number of {@code long} words) to non-negative
+ * integers. The keys are stored inline in a single {@code long[]}, so no objects are allocated per entry
+ */
+public class StateTable {
+    private static final int EMPTY = -1;
+
+    private final int words;
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public StateTable(int words) {
+        this(words, 1024);
+    }
+
+    public StateTable(int words, int expectedSize) {
+        assert words >= 1 : "A state needs at least 1 word";
+        this.words = words;
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity * words];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /**
+     * Get the value associated with a state
+     * @param state The array containing the packed state
+     * @param offset The index of the first word of the state
+     * @return The value, or -1 if the state is not in the table
+     */
+    public int get(long[] state, int offset) {
+        return values[find(state, offset)];
+    }
+
+    /**
+     * Associates a state with a value, replacing the previous value if there is one
+     * @param state The array containing the packed state
+     * @param offset The index of the first word of the state
+     * @param value A non-negative value
+     * @return The previous value, or -1 if the state was not in the table
+     */
+    public int put(long[] state, int offset, int value) {
+        assert value >= 0 : "Values need to be non-negative";
+        int slot = find(state, offset);
+        int previous = values[slot];
+        if (previous == EMPTY) {
+            System.arraycopy(state, offset, keys, slot * words, words);
+            size++;
+        }
+        values[slot] = value;
+        // Keep the load factor under 1/2
+        if (size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes a state
+     * @param state The array containing the packed state
+     * @param offset The index of the first word of the state
+     * @return The value of the state, or -1 if the state was not in the table
+     */
+    public int remove(long[] state, int offset) {
+        int slot = find(state, offset);
+        int previous = values[slot];
+        if (previous == EMPTY) {
+            return EMPTY;
+        }
+        // Move back the later entries of the run that could no longer be found across the hole
+        int hole = slot;
+        for (int next = (hole + 1) & mask; values[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(keys, next * words) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                System.arraycopy(keys, next * words, keys, hole * words, words);
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = EMPTY;
+        size--;
+        return previous;
+    }
+
+    /**
+     * Removes all entries while keeping the allocated storage
+     */
+    public void clear() {
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the size of the arrays
+     * @return The size in bytes
+     */
+    public long memory() {
+        return (long) values.length * (words * 8 + 4);
+    }
+
+    // Helpers
+    /**
+     * Finds the slot holding the state, or the empty slot where it would be inserted
+     */
+    private int find(long[] state, int offset) {
+        int slot = hash(state, offset) & mask;
+        while (values[slot] != EMPTY && !keyEquals(slot, state, offset)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals(int slot, long[] state, int offset) {
+        int base = slot * words;
+        for (int i = 0; i < words; i++) {
+            if (keys[base + i] != state[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity * words];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                int slot = find(oldKeys, i * words);
+                System.arraycopy(oldKeys, i * words, keys, slot * words, words);
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Mixes all words of a state (using the finalizer of MurmurHash3) into a well distributed hash
+     */
+    public static int hash(long[] state, int offset, int words) {
+        long h = 0;
+        for (int i = 0; i < words; i++) {
+            h = (h ^ state[offset + i]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE5349A53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private int hash(long[] state, int offset) {
+        return hash(state, offset, words);
+    }
+}